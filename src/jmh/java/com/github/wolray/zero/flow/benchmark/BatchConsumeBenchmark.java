@@ -0,0 +1,107 @@
+package com.github.wolray.zero.flow.benchmark;
+
+import com.github.wolray.zero.flow.BatchedZeroFlow;
+import com.github.wolray.zero.flow.IntZeroFlow;
+import com.github.wolray.zero.flow.Reducer;
+import com.github.wolray.zero.flow.ZeroFlow;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 数组源上逐个元素回调与{@link IntZeroFlow#consumeBatches}按块回调的对比，element为原来的逐个实现。
+ * setup阶段先用几种不同的lambda跑一遍，让公共调用点变成多态
+ *
+ * @author wolray
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchConsumeBenchmark {
+
+  public int size = 1000000;
+
+  private int[] ints;
+
+  private BatchedZeroFlow<Integer> boxed;
+
+  @Setup(Level.Trial)
+  public void setup() {
+
+    ints  = IntZeroFlow.range(size).toArray();
+    boxed = IntZeroFlow.range(size).boxed().toBatched();
+    for (int i = 0; i < 20; i++) {
+      IntZeroFlow.of(ints).filter(t -> t > 3).foldInt(0, (a, t) -> a ^ t);
+      IntZeroFlow.of(ints).filter(t -> (t & 1) == 0).foldInt(1, Math::max);
+      IntZeroFlow.of(ints).filter(t -> t % 5 != 0).sum();
+      IntZeroFlow.range(size).filter(t -> t < 100).sum();
+      boxed.consumeIndexed((j, t) -> ints[j] = t);
+      boxed.toIntArray(t -> t + 1);
+    }
+  }
+
+  @Benchmark
+  public int sumElement() {
+
+    return IntZeroFlow.of(ints).foldInt(0, Integer::sum);
+  }
+
+  @Benchmark
+  public int sumBatch() {
+
+    return IntZeroFlow.of(ints).sum();
+  }
+
+  @Benchmark
+  public int filterSumElement() {
+
+    return IntZeroFlow.of(ints).filter(i -> (i & 3) == 0).foldInt(0, Integer::sum);
+  }
+
+  @Benchmark
+  public int filterSumBatch() {
+
+    return IntZeroFlow.of(ints).filter(i -> (i & 3) == 0).sum();
+  }
+
+  @Benchmark
+  public int[] toIntArrayElement() {
+
+    int[] a = new int[boxed.size()];
+    boxed.consumeIndexed((i, t) -> a[i] = t);
+    return a;
+  }
+
+  @Benchmark
+  public int[] toIntArrayBatch() {
+
+    return boxed.toIntArray(i -> i);
+  }
+
+  @Benchmark
+  public void chunkedElement(Blackhole bh) {
+
+    ZeroFlow<Integer> seq = boxed;
+    seq.chunked(1000, Reducer.toList(1000)).consume(bh::consume);
+  }
+
+  @Benchmark
+  public void chunkedBatch(Blackhole bh) {
+
+    boxed.chunked(1000).consume(bh::consume);
+  }
+
+}
@@ -0,0 +1,125 @@
+package com.github.wolray.zero.flow.benchmark;
+
+import com.github.wolray.zero.flow.BatchedZeroFlow;
+import com.github.wolray.zero.flow.IntZeroFlow;
+import com.github.wolray.zero.flow.ZeroFlow;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 缓存类的流：{@link BatchedZeroFlow}与{@link IntZeroFlow.Batched}的写入与遍历
+ *
+ * @author wolray
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class BatchedZeroFlowBenchmark {
+
+  @Param({"1000", "1000000", "100000000"})
+  public int size;
+
+  private BatchedZeroFlow<Integer> batched;
+
+  private List<Integer> list;
+
+  private IntZeroFlow.Batched intBatched;
+
+  private int[] ints;
+
+  @Setup(Level.Trial)
+  public void setup() {
+
+    batched    = ZeroFlowBenchmark.flow(size).toBatched();
+    list       = ZeroFlowBenchmark.stream(size).collect(Collectors.toList());
+    intBatched = IntZeroFlow.range(size).toBatched();
+    ints       = IntStream.range(0, size).toArray();
+  }
+
+  @Benchmark
+  public Object build() {
+
+    return ZeroFlowBenchmark.flow(size).toBatched();
+  }
+
+  @Benchmark
+  public Object buildList() {
+
+    return ZeroFlowBenchmark.stream(size).collect(Collectors.toList());
+  }
+
+  @Benchmark
+  public void consume(Blackhole bh) {
+
+    batched.consume(bh::consume);
+  }
+
+  @Benchmark
+  public void consumeList(Blackhole bh) {
+
+    list.forEach(bh::consume);
+  }
+
+  @Benchmark
+  public void iterate(Blackhole bh) {
+
+    for (Integer i : batched) {
+      bh.consume(i);
+    }
+  }
+
+  @Benchmark
+  public Object toObjArray() {
+
+    return batched.toObjArray(Integer[]::new);
+  }
+
+  @Benchmark
+  public Object toObjArrayList() {
+
+    return list.toArray(new Integer[0]);
+  }
+
+  @Benchmark
+  public Object buildInt() {
+
+    return IntZeroFlow.range(size).toBatched();
+  }
+
+  @Benchmark
+  public int[] toArrayInt() {
+
+    return intBatched.toArray();
+  }
+
+  @Benchmark
+  public int[] toArrayIntStream() {
+
+    return IntStream.of(ints).toArray();
+  }
+
+  @Benchmark
+  public ZeroFlow<Integer> cache() {
+
+    return ZeroFlowBenchmark.flow(size).cache();
+  }
+
+}
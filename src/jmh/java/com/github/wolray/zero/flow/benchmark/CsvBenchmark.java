@@ -0,0 +1,91 @@
+package com.github.wolray.zero.flow.benchmark;
+
+import com.github.wolray.zero.flow.ByteSource;
+import com.github.wolray.zero.flow.CsvReader;
+import com.github.wolray.zero.flow.Splitter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 200列的宽表只读5列时，按行切分与{@link CsvReader}列投影的对比
+ *
+ * @author wolray
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CsvBenchmark {
+
+  static final int[] COLUMNS = {3, 50, 99, 150, 199};
+
+  @Param({"10000"})
+  public int rows;
+
+  private ByteSource source;
+
+  @Setup(Level.Trial)
+  public void setup() {
+
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < 200; j++) {
+        if (j > 0) {
+          sb.append(',');
+        }
+        if (j % 10 == 1) {
+          sb.append("\"text ").append(j).append('"');
+        } else {
+          sb.append(i * 31 + j);
+        }
+      }
+      sb.append('\n');
+    }
+    source = ByteSource.of(sb.toString().getBytes());
+  }
+
+  /**
+   * 基线不处理引号，数据中的引号列不含分隔符
+   */
+  @Benchmark
+  public void splitter(Blackhole bh) {
+
+    Splitter splitter = Splitter.of(',');
+    source.toSeq().consume(line -> {
+      List<String> fields = splitter.split(line).toList();
+      long         sum    = 0;
+      for (int col : COLUMNS) {
+        sum += Long.parseLong(fields.get(col));
+      }
+      bh.consume(sum);
+    });
+  }
+
+  @Benchmark
+  public void projected(Blackhole bh) {
+
+    CsvReader.csv().select(COLUMNS).read(source).consume(row -> {
+      long sum = 0;
+      for (int i = 0; i < COLUMNS.length; i++) {
+        sum += row.getLong(i);
+      }
+      bh.consume(sum);
+    });
+  }
+
+}
@@ -0,0 +1,88 @@
+package com.github.wolray.zero.flow.benchmark;
+
+import com.github.wolray.zero.flow.FusedZeroFlow;
+import com.github.wolray.zero.flow.ZeroFlow;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 深层流水线下{@link FusedZeroFlow}与默认lambda嵌套实现的对比。
+ * setup阶段先跑几种不同形状的流水线，让公共调用点变成多态，贴近生产环境的情况
+ *
+ * @author wolray
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class FusionBenchmark {
+
+  @Param({"1000", "1000000"})
+  public int size;
+
+  @Setup(Level.Trial)
+  public void pollute() {
+
+    Blackhole bh = new Blackhole("Today's password is swordfish. I understand instantiating Blackholes directly is dangerous.");
+    for (int i = 0; i < 20; i++) {
+      ZeroFlowBenchmark.flow(10000).filter(t -> t > 3).map(t -> t + 1).consume(bh::consume);
+      ZeroFlowBenchmark.flow(10000).map(String::valueOf).filter(s -> s.length() > 1).consume(bh::consume);
+      ZeroFlowBenchmark.flow(10000).onEach(bh::consume).mapNotNull(t -> t > 5 ? t : null).consume(bh::consume);
+      ZeroFlowBenchmark.flow(10000).fuse().filter(t -> t > 3).map(t -> t + 1).consume(bh::consume);
+      ZeroFlowBenchmark.flow(10000).fuse().map(String::valueOf).filter(s -> s.length() > 1).consume(bh::consume);
+    }
+  }
+
+  @Benchmark
+  public void deep(Blackhole bh) {
+
+    ZeroFlowBenchmark.flow(size)
+        .map(i -> i + 1)
+        .filter(i -> (i & 1) == 0)
+        .map(i -> i * 3)
+        .mapNotNull(i -> i % 7 == 0 ? null : i)
+        .onEach(bh::consume)
+        .filter(i -> i > 10)
+        .consume(bh::consume);
+  }
+
+  @Benchmark
+  public void deepFused(Blackhole bh) {
+
+    ZeroFlowBenchmark.flow(size).fuse()
+        .map(i -> i + 1)
+        .filter(i -> (i & 1) == 0)
+        .map(i -> i * 3)
+        .mapNotNull(i -> i % 7 == 0 ? null : i)
+        .onEach(bh::consume)
+        .filter(i -> i > 10)
+        .consume(bh::consume);
+  }
+
+  @Benchmark
+  public void shallow(Blackhole bh) {
+
+    ZeroFlowBenchmark.flow(size).map(i -> i + 1).filter(i -> (i & 1) == 0).consume(bh::consume);
+  }
+
+  @Benchmark
+  public void shallowFused(Blackhole bh) {
+
+    ZeroFlowBenchmark.flow(size).fuse().map(i -> i + 1).filter(i -> (i & 1) == 0).consume(bh::consume);
+  }
+
+}
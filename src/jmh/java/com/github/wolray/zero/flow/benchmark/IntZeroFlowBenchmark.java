@@ -0,0 +1,94 @@
+package com.github.wolray.zero.flow.benchmark;
+
+import com.github.wolray.zero.flow.IntZeroFlow;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link IntZeroFlow}与{@link IntStream}的对比
+ *
+ * @author wolray
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class IntZeroFlowBenchmark {
+
+  @Param({"1000", "1000000", "100000000"})
+  public int size;
+
+  @Benchmark
+  public int mapFilterSum() {
+
+    return IntZeroFlow.range(size).map(i -> i * 3).filter(i -> (i & 1) == 0).sum();
+  }
+
+  @Benchmark
+  public int mapFilterSumStream() {
+
+    return IntStream.range(0, size).map(i -> i * 3).filter(i -> (i & 1) == 0).sum();
+  }
+
+  @Benchmark
+  public void take(Blackhole bh) {
+
+    IntZeroFlow.range(size).filter(i -> i % 3 == 0).take(size >> 2).consume(bh::consume);
+  }
+
+  @Benchmark
+  public void takeStream(Blackhole bh) {
+
+    IntStream.range(0, size).filter(i -> i % 3 == 0).limit(size >> 2).forEach(bh::consume);
+  }
+
+  @Benchmark
+  public void flatMap(Blackhole bh) {
+
+    IntZeroFlow.range(size / 10).flatMap(i -> IntZeroFlow.range(i, i + 10)).consume(bh::consume);
+  }
+
+  @Benchmark
+  public void flatMapStream(Blackhole bh) {
+
+    IntStream.range(0, size / 10).flatMap(i -> IntStream.range(i, i + 10)).forEach(bh::consume);
+  }
+
+  @Benchmark
+  public int[] toArray() {
+
+    return IntZeroFlow.range(size).map(i -> i + 1).toArray();
+  }
+
+  @Benchmark
+  public int[] toArrayStream() {
+
+    return IntStream.range(0, size).map(i -> i + 1).toArray();
+  }
+
+  @Benchmark
+  public double average() {
+
+    return IntZeroFlow.range(size).average();
+  }
+
+  @Benchmark
+  public double averageStream() {
+
+    return IntStream.range(0, size).average().orElse(0);
+  }
+
+}
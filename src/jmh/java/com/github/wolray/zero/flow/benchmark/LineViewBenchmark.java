@@ -0,0 +1,61 @@
+package com.github.wolray.zero.flow.benchmark;
+
+import com.github.wolray.zero.flow.ByteSource;
+import com.github.wolray.zero.flow.LineView;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 只保留约0.1%行的过滤场景下，逐行创建字符串与复用{@link LineView}的对比，配合{@code -prof gc}看分配
+ *
+ * @author wolray
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LineViewBenchmark {
+
+  @Param({"100000"})
+  public int lines;
+
+  private ByteSource source;
+
+  @Setup(Level.Trial)
+  public void setup() {
+
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < lines; i++) {
+      sb.append(i).append(",user-").append(i % 97).append(",").append(i % 1000 == 0 ? "ERROR" : "INFO")
+          .append(",some payload that makes the line look like a real log record\n");
+    }
+    source = ByteSource.of(sb.toString().getBytes());
+  }
+
+  @Benchmark
+  public void strings(Blackhole bh) {
+
+    source.toSeq().filter(s -> s.contains("ERROR")).consume(bh::consume);
+  }
+
+  @Benchmark
+  public void views(Blackhole bh) {
+
+    source.toLineViews().filter(v -> v.contains("ERROR")).map(LineView::toString).consume(bh::consume);
+  }
+
+}
@@ -0,0 +1,92 @@
+package com.github.wolray.zero.flow.benchmark;
+
+import com.github.wolray.zero.flow.ArrayListZeroFlow;
+import com.github.wolray.zero.flow.Async;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 缓存数据上的CPU密集型并行：逐元素提交、区间切分与{@link java.util.stream.Stream#parallel()}的对比
+ *
+ * @author wolray
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ParallelBenchmark {
+
+  @Param({"1000", "1000000"})
+  public int size;
+
+  @Param({"1024"})
+  public int leafSize;
+
+  private ArrayListZeroFlow<Integer> list;
+
+  private List<Integer> javaList;
+
+  private final Async async = Async.common();
+
+  @Setup(Level.Trial)
+  public void setup() {
+
+    list     = ZeroFlowBenchmark.flow(size).toList();
+    javaList = ZeroFlowBenchmark.stream(size).collect(Collectors.toList());
+  }
+
+  @Benchmark
+  public long perElement() {
+
+    LongAdder sum = new LongAdder();
+    list.parallel(async).filter(i -> (i & 1) == 0).map(i -> i * 3).consume(sum::add);
+    return sum.sum();
+  }
+
+  @Benchmark
+  public long split() {
+
+    LongAdder sum = new LongAdder();
+    list.parallel(async, leafSize).filter(i -> (i & 1) == 0).map(i -> i * 3).consume(sum::add);
+    return sum.sum();
+  }
+
+  @Benchmark
+  public long perElementUnsized() {
+
+    LongAdder sum = new LongAdder();
+    ZeroFlowBenchmark.flow(size).parallel(async).filter(i -> (i & 1) == 0).map(i -> i * 3).consume(sum::add);
+    return sum.sum();
+  }
+
+  @Benchmark
+  public long batchedUnsized() {
+
+    LongAdder sum = new LongAdder();
+    ZeroFlowBenchmark.flow(size).parallel(async, 0).filter(i -> (i & 1) == 0).map(i -> i * 3).consume(sum::add);
+    return sum.sum();
+  }
+
+  @Benchmark
+  public long stream() {
+
+    return javaList.parallelStream().filter(i -> (i & 1) == 0).mapToLong(i -> i * 3).sum();
+  }
+
+}
@@ -0,0 +1,74 @@
+package com.github.wolray.zero.flow.benchmark;
+
+import com.github.wolray.zero.flow.Async;
+import com.github.wolray.zero.flow.MapZeroFlow;
+import com.github.wolray.zero.flow.Reducer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 不定长流上groupBy的顺序归约与{@link com.github.wolray.zero.flow.ZeroFlow#parallelReduce}的对比，
+ * threads为ForkJoin池的并行度，keys为分组数，分组越多中间结果越大、合并越贵
+ *
+ * @author wolray
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ParallelReduceBenchmark {
+
+  @Param({"2000000"})
+  public int size;
+
+  @Param({"100", "100000"})
+  public int keys;
+
+  @Param({"1", "4"})
+  public int threads;
+
+  private ForkJoinPool pool;
+
+  private Async async;
+
+  @Setup(Level.Trial)
+  public void setup() {
+
+    pool  = new ForkJoinPool(threads);
+    async = Async.of(pool);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public MapZeroFlow<Integer, Integer> groupBySequential() {
+
+    return ZeroFlowBenchmark.flow(size).reduce(Reducer.groupBy(i -> i % keys, Reducer.count()));
+  }
+
+  @Benchmark
+  public MapZeroFlow<Integer, Integer> groupByParallel() {
+
+    return ZeroFlowBenchmark.flow(size).parallelReduce(async, Reducer.groupBy(i -> i % keys, Reducer.count()));
+  }
+
+}
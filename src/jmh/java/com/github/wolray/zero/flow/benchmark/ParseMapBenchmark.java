@@ -0,0 +1,63 @@
+package com.github.wolray.zero.flow.benchmark;
+
+import com.github.wolray.zero.flow.KeyCache;
+import com.github.wolray.zero.flow.Parsers;
+import com.github.wolray.zero.flow.pair.PairZeroFlow;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 固定词汇的k:v|k:v负载上，{@link PairZeroFlow#parseMap}各模式的对比，配合{@code -prof gc}看分配
+ *
+ * @author wolray
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseMapBenchmark {
+
+  public String payload = "host:web-01|cpu:42|mem:7731|disk:12|net_in:5512|net_out:3321|load:3|status:200";
+
+  private final KeyCache keys = new KeyCache(64);
+
+  @Benchmark
+  public void plain(Blackhole bh) {
+
+    PairZeroFlow.parseMap(payload, '|', ':').consume((k, v) -> {
+      bh.consume(k);
+      bh.consume(v);
+    });
+  }
+
+  @Benchmark
+  public void cached(Blackhole bh) {
+
+    PairZeroFlow.parseMap(payload, '|', ':', keys).consume((k, v) -> {
+      bh.consume(k);
+      bh.consume(v);
+    });
+  }
+
+  @Benchmark
+  public void offsets(Blackhole bh) {
+
+    String s = payload;
+    PairZeroFlow.parseMap(s, '|', ':', keys, (k, start, end) -> {
+      bh.consume(k);
+      bh.consume(k.equals("host") ? start : Parsers.parseLong(s, start, end));
+    });
+  }
+
+}
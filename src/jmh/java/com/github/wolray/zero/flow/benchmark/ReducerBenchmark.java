@@ -0,0 +1,132 @@
+package com.github.wolray.zero.flow.benchmark;
+
+import com.github.wolray.zero.flow.Async;
+import com.github.wolray.zero.flow.Reducer;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 内置{@link Reducer}与{@link Collectors}的对比
+ *
+ * @author wolray
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ReducerBenchmark {
+
+  @Param({"1000", "1000000", "100000000"})
+  public int size;
+
+  @Benchmark
+  public Object count() {
+
+    return ZeroFlowBenchmark.flow(size).reduce(Reducer.count());
+  }
+
+  @Benchmark
+  public Object countStream() {
+
+    return ZeroFlowBenchmark.stream(size).collect(Collectors.counting());
+  }
+
+  @Benchmark
+  public Object sumInt() {
+
+    return ZeroFlowBenchmark.flow(size).reduce(Reducer.sumInt(i -> i));
+  }
+
+  @Benchmark
+  public Object sumIntStream() {
+
+    return ZeroFlowBenchmark.stream(size).collect(Collectors.summingInt(i -> i));
+  }
+
+  @Benchmark
+  public Object average() {
+
+    return ZeroFlowBenchmark.flow(size).reduce(Reducer.average(i -> i));
+  }
+
+  @Benchmark
+  public Object averageStream() {
+
+    return ZeroFlowBenchmark.stream(size).collect(Collectors.averagingDouble(i -> i));
+  }
+
+  @Benchmark
+  public Object groupBySum() {
+
+    return ZeroFlowBenchmark.flow(size).reduce(Reducer.groupBy(i -> i % 1000, Reducer.sumInt(i -> i)));
+  }
+
+  @Benchmark
+  public Object groupBySumStream() {
+
+    return ZeroFlowBenchmark.stream(size).collect(Collectors.groupingBy(i -> i % 1000, Collectors.summingInt(i -> i)));
+  }
+
+  @Benchmark
+  public Object groupBySumParallel() {
+
+    return ZeroFlowBenchmark.flow(size).toList()
+        .parallelReduce(Async.common(), Reducer.groupBy(i -> i % 1000, Reducer.sumInt(i -> i)));
+  }
+
+  @Benchmark
+  public Object groupBySumParallelStream() {
+
+    return ZeroFlowBenchmark.stream(size).collect(Collectors.toList()).parallelStream()
+        .collect(Collectors.groupingBy(i -> i % 1000, Collectors.summingInt(i -> i)));
+  }
+
+  @Benchmark
+  public Object toList() {
+
+    return ZeroFlowBenchmark.flow(size).reduce(Reducer.toList());
+  }
+
+  @Benchmark
+  public Object toListStream() {
+
+    return ZeroFlowBenchmark.stream(size).collect(Collectors.toList());
+  }
+
+  @Benchmark
+  public Object partition() {
+
+    return ZeroFlowBenchmark.flow(size).reduce(Reducer.partition(i -> (i & 1) == 0, Reducer.count()));
+  }
+
+  @Benchmark
+  public Object partitionStream() {
+
+    return ZeroFlowBenchmark.stream(size).collect(Collectors.partitioningBy(i -> (i & 1) == 0, Collectors.counting()));
+  }
+
+  @Benchmark
+  public Object join() {
+
+    return ZeroFlowBenchmark.flow(size / 10).reduce(Reducer.join(",", String::valueOf));
+  }
+
+  @Benchmark
+  public Object joinStream() {
+
+    return ZeroFlowBenchmark.stream(size / 10).map(String::valueOf).collect(Collectors.joining(","));
+  }
+
+}
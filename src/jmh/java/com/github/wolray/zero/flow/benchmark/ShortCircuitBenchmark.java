@@ -0,0 +1,77 @@
+package com.github.wolray.zero.flow.benchmark;
+
+import com.github.wolray.zero.flow.IntZeroFlow;
+import com.github.wolray.zero.flow.Sink;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 短路操作在检查{@link Sink}取消状态的源（{@link IntZeroFlow#range}）和不检查的源上的对比，
+ * 后者仍靠{@code StopException}中断。nested在flatMap内部对每个外层元素都短路一次
+ *
+ * @author wolray
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShortCircuitBenchmark {
+
+  public int size = 1000;
+
+  private final IntZeroFlow polling = IntZeroFlow.range(size);
+
+  private final IntZeroFlow plain = c -> {
+    for (int i = 0; i < size; i++) {
+      c.accept(i);
+    }
+  };
+
+  @Benchmark
+  public void takeSink(Blackhole bh) {
+
+    polling.boxed().map(i -> i + 1).filter(i -> (i & 1) == 0).take(8).consume(bh::consume);
+  }
+
+  @Benchmark
+  public void takeStop(Blackhole bh) {
+
+    plain.boxed().map(i -> i + 1).filter(i -> (i & 1) == 0).take(8).consume(bh::consume);
+  }
+
+  @Benchmark
+  public int firstSink() {
+
+    return polling.map(i -> i * 3).find(i -> i > 20).getAsInt();
+  }
+
+  @Benchmark
+  public int firstStop() {
+
+    return plain.map(i -> i * 3).find(i -> i > 20).getAsInt();
+  }
+
+  @Benchmark
+  public void nestedSink(Blackhole bh) {
+
+    IntZeroFlow.range(100).boxed().flatMap(i -> polling.boxed().take(4)).consume(bh::consume);
+  }
+
+  @Benchmark
+  public void nestedStop(Blackhole bh) {
+
+    IntZeroFlow.range(100).boxed().flatMap(i -> plain.boxed().take(4)).consume(bh::consume);
+  }
+
+}
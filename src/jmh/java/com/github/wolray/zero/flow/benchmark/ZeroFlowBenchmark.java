@@ -0,0 +1,179 @@
+package com.github.wolray.zero.flow.benchmark;
+
+import com.github.wolray.zero.flow.ArrayListZeroFlow;
+import com.github.wolray.zero.flow.ZeroFlow;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link ZeroFlow}常用操作符与{@link Stream}等价写法的对比
+ *
+ * @author wolray
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ZeroFlowBenchmark {
+
+  @Param({"1000", "1000000", "100000000"})
+  public int size;
+
+  public static ZeroFlow<Integer> flow(int size) {
+
+    return c -> {
+      for (int i = 0; i < size; i++) {
+        c.accept(i);
+      }
+    };
+  }
+
+  public static Stream<Integer> stream(int size) {
+
+    return IntStream.range(0, size).boxed();
+  }
+
+  @Benchmark
+  public void mapFilter(Blackhole bh) {
+
+    flow(size).map(i -> i * 3).filter(i -> (i & 1) == 0).consume(bh::consume);
+  }
+
+  @Benchmark
+  public void mapFilterStream(Blackhole bh) {
+
+    stream(size).map(i -> i * 3).filter(i -> (i & 1) == 0).forEach(bh::consume);
+  }
+
+  @Benchmark
+  public void take(Blackhole bh) {
+
+    flow(size).filter(i -> i % 3 == 0).take(size >> 2).consume(bh::consume);
+  }
+
+  @Benchmark
+  public void takeStream(Blackhole bh) {
+
+    stream(size).filter(i -> i % 3 == 0).limit(size >> 2).forEach(bh::consume);
+  }
+
+  @Benchmark
+  public void flatMap(Blackhole bh) {
+
+    flow(size / 10).flatMap(i -> c -> {
+      for (int j = 0; j < 10; j++) {
+        c.accept(i + j);
+      }
+    }).consume(bh::consume);
+  }
+
+  @Benchmark
+  public void flatMapStream(Blackhole bh) {
+
+    stream(size / 10).flatMap(i -> IntStream.range(0, 10).mapToObj(j -> i + j)).forEach(bh::consume);
+  }
+
+  @Benchmark
+  public Object groupBy() {
+
+    return flow(size).groupBy(i -> i % 1000);
+  }
+
+  @Benchmark
+  public Object groupByStream() {
+
+    return stream(size).collect(Collectors.groupingBy(i -> i % 1000));
+  }
+
+  @Benchmark
+  public Object sortBy() {
+
+    return flow(size).sortBy(i -> -i);
+  }
+
+  @Benchmark
+  public Object sortByStream() {
+
+    return stream(size).sorted(Comparator.comparing(i -> -i)).collect(Collectors.toList());
+  }
+
+  @Benchmark
+  public void chunked(Blackhole bh) {
+
+    flow(size).chunked(100).consume(bh::consume);
+  }
+
+  @Benchmark
+  public void chunkedStream(Blackhole bh) {
+
+    List<Integer>[] chunk = new List[]{new ArrayList<>(100)};
+    stream(size).forEachOrdered(i -> {
+      chunk[0].add(i);
+      if (chunk[0].size() == 100) {
+        bh.consume(chunk[0]);
+        chunk[0] = new ArrayList<>(100);
+      }
+    });
+    if (!chunk[0].isEmpty()) {
+      bh.consume(chunk[0]);
+    }
+  }
+
+  @Benchmark
+  public void windowed(Blackhole bh) {
+
+    flow(size).windowed(10, 5, false).consume(bh::consume);
+  }
+
+  @Benchmark
+  public void windowedStream(Blackhole bh) {
+
+    ArrayDeque<List<Integer>> queue = new ArrayDeque<>();
+    int[]                     left  = {0};
+    stream(size).forEachOrdered(i -> {
+      if (left[0] == 0) {
+        left[0] = 5;
+        queue.offer(new ArrayList<>(10));
+      }
+      left[0]--;
+      queue.forEach(ls -> ls.add(i));
+      if (queue.peek().size() == 10) {
+        bh.consume(queue.poll());
+      }
+    });
+  }
+
+  @Benchmark
+  public Object cacheToList() {
+
+    ArrayListZeroFlow<Integer> list = flow(size).toList();
+    return list.map(i -> i + 1).toList();
+  }
+
+  @Benchmark
+  public Object cacheToListStream() {
+
+    List<Integer> list = stream(size).collect(Collectors.toList());
+    return list.stream().map(i -> i + 1).collect(Collectors.toList());
+  }
+
+}
@@ -9,7 +9,7 @@ import java.util.function.Consumer;
  *
  * @author wolray
  */
-public class ArrayListZeroFlow<T> extends ArrayList<T> implements ListZeroFlow<T> {
+public class ArrayListZeroFlow<T> extends ArrayList<T> implements ListZeroFlow<T>, BlockSource {
 
   public ArrayListZeroFlow(int initialCapacity) {
 
@@ -25,6 +25,21 @@ public class ArrayListZeroFlow<T> extends ArrayList<T> implements ListZeroFlow<T
     super(c);
   }
 
+  /**
+   * 内部数组不可见，按块复制到复用的缓冲中，JDK 9+上每块是一次数组复制
+   */
+  @Override
+  public void consumeBatches(BatchConsumer<T> consumer) {
+
+    int      size  = size();
+    Object[] block = new Object[Math.min(size, 256)];
+    for (int from = 0; from < size; from += block.length) {
+      int to = Math.min(from + block.length, size);
+      subList(from, to).toArray(block);
+      consumer.accept(block, 0, to - from);
+    }
+  }
+
   public void swap(int i, int j) {
 
     T t = get(i);
@@ -1,8 +1,8 @@
 package com.github.wolray.zero.flow;
 
-import java.util.ArrayList;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ForkJoinPool;
@@ -21,11 +21,37 @@ public interface Async {
     return of(ForkJoinPool.commonPool());
   }
 
+  /**
+   * JDK 21+上每个提交的任务都运行在新的虚拟线程中，适合大量阻塞IO的任务，如{@link #toChannel}和{@link #toShared}的订阅者。
+   * 更低版本的运行时退化为守护线程的缓存线程池
+   */
+  static Async virtual() {
+
+    return VirtualThreads.ASYNC;
+  }
+
+  /**
+   * 当前运行时是否支持虚拟线程
+   */
+  static boolean isVirtualSupported() {
+
+    return VirtualThreads.isSupported();
+  }
+
   static Async of(ForkJoinPool forkJoinPool) {
 
     return new ForkJoin(forkJoinPool);
   }
 
+  /**
+   * 按CPU核数估算的默认分块大小，每个核大约分到4块以平衡负载
+   */
+  static int batchSize(int size) {
+
+    int parts = Runtime.getRuntime().availableProcessors() << 2;
+    return Math.max(1, size / parts + (size % parts == 0 ? 0 : 1));
+  }
+
   static void delay(long time) {
 
     try {
@@ -85,11 +111,21 @@ public interface Async {
 
         ArrayListZeroFlow<Runnable> list  = tasks.toList();
         CountDownLatch              latch = new CountDownLatch(list.size());
+        AtomicReference<Throwable>  error = new AtomicReference<>();
         list.consume(r -> factory.newThread(() -> {
-          r.run();
-          latch.countDown();
+          try {
+            r.run();
+          } catch (Throwable e) {
+            error.compareAndSet(null, e);
+          } finally {
+            latch.countDown();
+          }
         }).start());
-        apply(latch::wait);
+        apply(latch::await);
+        Throwable e = error.get();
+        if (e != null) {
+          throw e instanceof RuntimeException ? (RuntimeException) e : new CompletionException(e);
+        }
       }
     };
   }
@@ -112,6 +148,27 @@ public interface Async {
 
   void joinAll(ZeroFlow<Runnable> tasks);
 
+  /**
+   * 将下标区间[0, size)切分成不超过leafSize的小区间并行执行，全部完成后返回
+   *
+   * @param leafSize
+   *     每个叶子任务处理的最大元素数量
+   * @param consumer
+   *     在叶子任务中按[from, to)顺序处理
+   */
+  default void joinRange(int size, int leafSize, IntZeroFlow.IntIntConsumer consumer) {
+
+    int leaf = Math.max(1, leafSize);
+    joinAll(c -> {
+      for (int from = 0, to; from < size; from = to) {
+        int start = from;
+        to = size - from > leaf ? from + leaf : size;
+        int end = to;
+        c.accept(() -> consumer.accept(start, end));
+      }
+    });
+  }
+
   default <T> AsyncZeroFlow<T> toAsync(ZeroFlow<T> seq) {
 
     return new AsyncZeroFlow<T>(this, sourceOf(seq)) {
@@ -134,88 +191,68 @@ public interface Async {
 
   default <T> AsyncZeroFlow<T> toChannel(ZeroFlow<T> seq) {
 
+    return toChannel(1024, RingChannel.Overflow.BLOCK, seq);
+  }
+
+  /**
+   * 生产者在异步任务中把数据写入{@link RingChannel}，消费者在当前线程中消费。消费者提前退出时生产者随之停止
+   *
+   * @param capacity
+   *     通道容量
+   * @param overflow
+   *     通道满时的策略
+   */
+  default <T> AsyncZeroFlow<T> toChannel(int capacity, RingChannel.Overflow overflow, ZeroFlow<T> seq) {
+
     return new AsyncZeroFlow<T>(this, sourceOf(seq)) {
 
       @Override
       public void consume(Consumer<T> consumer) {
 
         checkState();
-        HotChannel<T> channel = new HotChannel<>();
+        RingChannel<T> channel = new RingChannel<>(capacity, overflow);
         task = submit(() -> {
-          source.consumeTillStop(t -> {
-            if (cancelled) {
-              ZeroFlow.stop();
-            }
-            if (channel.isEmpty()) {
-              channel.offer(t);
-              channel.easyNotify();
-            } else {
-              consumer.accept(t);
-            }
-          });
-          channel.stop = true;
-          channel.easyNotify();
-        });
-        while (true) {
-          while (!channel.isEmpty()) {
-            consumer.accept(channel.poll());
-          }
-          if (channel.stop) {
-            break;
+          try {
+            source.consumeTillStop(t -> {
+              if (cancelled || !channel.offer(t)) {
+                ZeroFlow.stop();
+              }
+            });
+          } catch (RuntimeException | Error e) {
+            channel.fail(e);
+            throw e;
+          } finally {
+            channel.close();
           }
-          channel.easyWait();
-        }
+        });
+        channel.consume(consumer);
       }
     };
   }
 
-  default <T> ZeroFlow<T> toShared(int buffer, boolean delay, ZeroFlow<T> seq) {
+  default <T> SharedRing<T> toShared(int buffer, boolean delay, ZeroFlow<T> seq) {
+
+    return toShared(buffer, delay, SharedRing.SlowPolicy.LAG, seq);
+  }
+
+  /**
+   * 把流广播给多个订阅者，每次{@link ZeroFlow#consume}都是一个新的异步订阅者
+   *
+   * @param buffer
+   *     环的大小，向上取整为2的幂
+   * @param delay
+   *     为true时第一个订阅者出现才开始生产
+   * @param policy
+   *     订阅者跟不上生产者时的策略
+   */
+  default <T> SharedRing<T> toShared(int buffer, boolean delay, SharedRing.SlowPolicy policy, ZeroFlow<T> seq) {
 
     ForkJoin.checkForHot(this);
-    ZeroFlow<T> source = sourceOf(seq);
-    SharedArray<T> array  = new SharedArray<>(buffer);
-    Runnable emit = () -> {
-      source.consume(t -> {
-        if (array.end < buffer) {
-          array.add(t);
-          array.end += 1;
-        } else {
-          array.set(array.head, t);
-          if (++array.head == buffer) {
-            array.head = 0;
-          }
-          array.drop += 1;
-        }
-        array.easyNotify();
-      });
-      array.stop = true;
-      array.easyNotify();
-    };
-    AtomicReference<Object> task = new AtomicReference<>(null);
+    SharedRing<T> ring = new SharedRing<>(this, buffer, policy, sourceOf(seq));
     if (!delay) {
-      task.set(submit(emit));
+      ring.start();
     }
-    return c -> {
-      if (delay) {
-        task.getAndUpdate(o -> o != null ? o : submit(emit));
-      }
-      submit(() -> {
-        for (long i = array.drop; ; i++) {
-          if (array.stop) {
-            return;
-          }
-          if (i < array.drop) {
-            c.accept(array.get(array.head));
-            i = array.drop;
-          } else {
-            if (i - array.drop >= array.size()) {
-              array.easyWait();
-            }
-            c.accept(array.get((int) ((array.head + i - array.drop) % buffer)));
-          }
-        }
-      });
-    };
+    return ring;
   }
 
   default <T> ZeroFlow<T> toState(boolean delay, ZeroFlow<T> seq) {
@@ -311,21 +348,15 @@ public interface Async {
       tasks.map(forkJoinPool::submit).cache().consume(ForkJoinTask::join);
     }
 
-  }
-
-  class SharedArray<T> extends ArrayList<T> implements EasyLock {
-
-    int head;
-
-    int end;
-
-    long drop;
-
-    boolean stop;
-
-    SharedArray(int buffer) {
+    /**
+     * 递归二分区间，由work-stealing平衡各线程负载
+     */
+    @Override
+    public void joinRange(int size, int leafSize, IntZeroFlow.IntIntConsumer consumer) {
 
-      super(buffer);
+      if (size > 0) {
+        forkJoinPool.invoke(new RangeTask(0, size, Math.max(1, leafSize), consumer));
+      }
     }
 
   }
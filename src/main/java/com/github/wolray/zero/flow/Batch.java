@@ -0,0 +1,92 @@
+package com.github.wolray.zero.flow;
+
+import java.util.function.Consumer;
+
+/**
+ * 一批元素组成的任务，{@link ZeroFlow#parallel(Async, int)}中一批只提交一次
+ *
+ * @author wolray
+ */
+final class Batch<T> implements Runnable {
+
+  /**
+   * 自适应分批时每批的最大数量
+   */
+  static final int MAX_SIZE = 1024;
+
+  final int index;
+
+  final Object[] items;
+
+  final boolean grow;
+
+  final Consumer<T> consumer;
+
+  int size;
+
+  Batch(int index, int capacity, boolean grow, Consumer<T> consumer) {
+
+    this.index    = index;
+    this.items    = new Object[capacity];
+    this.grow     = grow;
+    this.consumer = consumer;
+  }
+
+  /**
+   * 把seq按顺序切分成批，每批满了就交给tasks
+   *
+   * @param batchSize
+   *     小于等于0时自适应：从1开始逐批翻倍，直到{@link #MAX_SIZE}
+   * @param consumer
+   *     {@link #run()}时处理每个元素，可以为null
+   */
+  static <T> void split(ZeroFlow<T> seq, int batchSize, Consumer<T> consumer, Consumer<Batch<T>> tasks) {
+
+    boolean grow = batchSize <= 0;
+    Batch<T> last = seq.fold(new Batch<>(0, grow ? 1 : batchSize, grow, consumer), (b, t) -> {
+      if (b.isFull()) {
+        tasks.accept(b);
+        b = b.next();
+      }
+      b.add(t);
+      return b;
+    });
+    if (last.size > 0) {
+      tasks.accept(last);
+    }
+  }
+
+  boolean isFull() {
+
+    return size == items.length;
+  }
+
+  void add(T t) {
+
+    items[size++] = t;
+  }
+
+  /**
+   * 自适应时每批容量翻倍，直到{@link #MAX_SIZE}
+   */
+  Batch<T> next() {
+
+    return new Batch<>(index + 1, grow ? Math.min(MAX_SIZE, items.length << 1) : items.length, grow, consumer);
+  }
+
+  @SuppressWarnings("unchecked")
+  void forEach(Consumer<T> consumer) {
+
+    Object[] items = this.items;
+    for (int i = 0, n = size; i < n; i++) {
+      consumer.accept((T) items[i]);
+    }
+  }
+
+  @Override
+  public void run() {
+
+    forEach(consumer);
+  }
+
+}
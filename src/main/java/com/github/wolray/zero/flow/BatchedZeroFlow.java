@@ -1,33 +1,66 @@
 package com.github.wolray.zero.flow;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.NoSuchElementException;
 import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
 /**
- * 对一个二维数组按行处理的流
+ * 对一个二维数组按行处理的流，行的容量按{@link Chunks}几何增长，支持O(1)的下标访问
  *
  * @author wolray
  */
-public class BatchedZeroFlow<T> implements SizedZeroFlow<T> {
+public class BatchedZeroFlow<T> implements SizedZeroFlow<T>, BlockSource {
 
-  private transient final LinkedList<ArrayList<T>> list = new LinkedList<>();
+  private transient final Object[][] chunks = new Object[Chunks.MAX][];
+
+  private transient int size;
+
+  @Override
+  public void consume(Consumer<T> consumer) {
+
+    consumeRange(0, size, consumer);
+  }
 
   /**
-   * 控制行的数量，最大是300
+   * 每行直接作为一块交出
    */
-  private transient int batchSize = 10;
+  @Override
+  public void consumeBatches(BatchConsumer<T> consumer) {
 
-  private transient int size;
+    for (int k = 0, pos = 0; pos < size; k++) {
+      int n = Math.min(size - pos, chunks[k].length);
+      consumer.accept(chunks[k], 0, n);
+      pos += n;
+    }
+  }
 
-  private transient ArrayList<T> cur;
+  /**
+   * 按行顺序处理[from, to)区间内的数据
+   */
+  @SuppressWarnings("unchecked")
+  public void consumeRange(int from, int to, Consumer<T> consumer) {
+
+    int k = Chunks.chunkOf(from);
+    for (int i = from; i < to; k++) {
+      Object[] chunk = chunks[k];
+      int      start = Chunks.startOf(k);
+      int      end   = Math.min(to - start, chunk.length);
+      for (int j = i - start; j < end; j++) {
+        consumer.accept((T) chunk[j]);
+      }
+      i = start + end;
+    }
+  }
 
-  @Override
-  public void consume(Consumer<T> consumer) {
+  @SuppressWarnings("unchecked")
+  public T get(int index) {
 
-    list.forEach(ls -> ls.forEach(consumer));
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    int k = Chunks.chunkOf(index);
+    return (T) chunks[k][index - Chunks.startOf(k)];
   }
 
   @Override
@@ -35,26 +68,21 @@ public class BatchedZeroFlow<T> implements SizedZeroFlow<T> {
 
     return new Iterator<T>() {
 
-      final Iterator<ArrayList<T>> iterator = list.iterator();
-
-      Iterator<T> cur = Collections.emptyIterator();
+      int index;
 
       @Override
       public boolean hasNext() {
 
-        if (!cur.hasNext()) {
-          if (!iterator.hasNext()) {
-            return false;
-          }
-          cur = iterator.next().iterator();
-        }
-        return true;
+        return index < size;
       }
 
       @Override
       public T next() {
 
-        return cur.next();
+        if (index >= size) {
+          throw new NoSuchElementException();
+        }
+        return get(index++);
       }
     };
   }
@@ -76,17 +104,46 @@ public class BatchedZeroFlow<T> implements SizedZeroFlow<T> {
    */
   public void add(T t) {
 
-    if (cur == null) {
-      cur = new ArrayList<>(batchSize);
-      list.add(cur);
+    int      k     = Chunks.chunkOf(size);
+    Object[] chunk = chunks[k];
+    if (chunk == null) {
+      //每行容量翻倍，已有的行不需要复制
+      chunk = chunks[k] = new Object[Chunks.capacityOf(k)];
     }
-    cur.add(t);
+    chunk[size - Chunks.startOf(k)] = t;
     size++;
-    if (cur.size() == batchSize) {
-      cur = null;
-      //控制行的数量，最大是300。每行容量翻倍扩容
-      batchSize = Math.min(300, Math.max(batchSize, size >> 1));
+  }
+
+  public Object[] toArray() {
+
+    return copyTo(new Object[size]);
+  }
+
+  @Override
+  public T[] toObjArray(IntFunction<T[]> initializer) {
+
+    return copyTo(initializer.apply(size));
+  }
+
+  private <A> A[] copyTo(A[] a) {
+
+    for (int k = 0, pos = 0; pos < size; k++) {
+      int n = Math.min(size - pos, chunks[k].length);
+      System.arraycopy(chunks[k], 0, a, pos, n);
+      pos += n;
     }
+    return a;
+  }
+
+  /**
+   * 按下标区间切分的数据并行，每个叶子任务直接遍历所在的行
+   *
+   * @see Async#joinRange(int, int, IntZeroFlow.IntIntConsumer)
+   */
+  @Override
+  public ZeroFlow<T> parallel(Async async, int leafSize) {
+
+    return c -> async.joinRange(size, leafSize > 0 ? leafSize : Async.batchSize(size), (from, to) -> consumeRange(from, to, c));
   }
 
   @Override
@@ -0,0 +1,11 @@
+package com.github.wolray.zero.flow;
+
+/**
+ * 自身持有连续数组、重写了consumeBatches的源。 <br/> 只有这些源上的{@link ZeroFlow#chunked(int)}等中间操作才按块处理，
+ * 其它源按块攒数据会提前拉取最多一块的元素，改变上游副作用的时机和首个结果的延迟
+ *
+ * @author wolray
+ */
+interface BlockSource {
+
+}
@@ -33,35 +33,15 @@ public interface ByteSource extends IOChain.Closable<InputStream> {
 
   static ByteSource of(Path path) {
 
-    return new ByteSource() {
-
-      @Override
-      public InputStream call() throws IOException {
-
-        return Files.newInputStream(path);
-      }
-
-      @Override
-      public byte[] toBytes() {
-
-        return IOChain.apply(path, Files::readAllBytes);
-      }
-
-      @Override
-      public IOChain<BufferedReader> toReader() {
-
-        return (Closable<BufferedReader>) () -> Files.newBufferedReader(path, charset());
-      }
+    return new PathByteSource(path, Charset.defaultCharset());
+  }
 
-      @Override
-      public Path write(Path target) {
+  /**
+   * 以内存映射的方式打开文件，用完需要{@link MappedByteSource#close()}
+   */
+  static MappedByteSource mapped(Path path) {
 
-        if (!path.equals(target)) {
-          IOChain.apply(path, p -> Files.copy(p, target, StandardCopyOption.REPLACE_EXISTING));
-        }
-        return target;
-      }
-    };
+    return MappedByteSource.map(path, MappedByteSource.SEGMENT_SHIFT);
   }
 
   static ByteSource of(InputStream is) {
@@ -217,6 +197,56 @@ public interface ByteSource extends IOChain.Closable<InputStream> {
     return toReader().toSeq(BufferedReader::readLine, skip);
   }
 
+  /**
+   * 逐行遍历，每行都是同一个复用的{@link LineView}，不为每行创建字符串，适合只保留少量行的过滤场景
+   */
+  default ZeroFlow<LineView> toLineViews() {
+
+    return toLineViews(8192);
+  }
+
+  default ZeroFlow<LineView> toLineViews(int bufferSize) {
+
+    return c -> mapClosable(is -> new InputStreamReader(is, charset())).use(r -> LineView.read(r, bufferSize, c));
+  }
+
+  /**
+   * 无序的并行按行读取
+   *
+   * @see #parallelLines(Async, int, boolean)
+   */
+  default ZeroFlow<String> parallelLines(Async async, int parts) {
+
+    return parallelLines(async, parts, false);
+  }
+
+  /**
+   * 把文件按字节区间拆分，每个区间对齐到下一个换行符后在各自的任务中解码和处理。 <br/>
+   * 只有文件路径和内存映射的数据源能拆分，其它数据源退化为单线程的{@link #toSeq()}
+   *
+   * @param parts
+   *     并行的区间数，有序时也是同时处理的最大区间数
+   * @param ordered
+   *     为false时各任务直接调用下游，下游需要线程安全；为true时按原文顺序在当前线程输出，区间会切得更细以限制缓冲的行数
+   */
+  default ZeroFlow<String> parallelLines(Async async, int parts, boolean ordered) {
+
+    if (parts <= 0) {
+      throw new IllegalArgumentException("non-positive parts");
+    }
+    return toSeq();
+  }
+
+  /**
+   * 流式读取JSON中路径选中的值，例如{@code $.items[*]}
+   *
+   * @see JsonReader#of(String)
+   */
+  default ZeroFlow<Object> toJsonSeq(String path) {
+
+    return JsonReader.of(path).read(this);
+  }
+
   default ByteSource withCharset(Charset charset) {
 
     ByteSource origin = this;
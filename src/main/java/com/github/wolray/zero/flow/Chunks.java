@@ -0,0 +1,41 @@
+package com.github.wolray.zero.flow;
+
+/**
+ * 按几何级数分块的数组下标计算。第k块的容量为{@code FIRST << k}，扩容只新增一块而不复制已有数据，
+ * 任意下标都能O(1)算出所在的块和块内偏移
+ *
+ * @author wolray
+ * @see BatchedZeroFlow
+ */
+final class Chunks {
+
+  /**
+   * 第一块的容量
+   */
+  static final int FIRST = 16;
+
+  /**
+   * int下标最多需要的块数
+   */
+  static final int MAX = 28;
+
+  private Chunks() {
+
+  }
+
+  static int chunkOf(int index) {
+
+    return 31 - Integer.numberOfLeadingZeros((index >>> 4) + 1);
+  }
+
+  static int startOf(int chunk) {
+
+    return (FIRST << chunk) - FIRST;
+  }
+
+  static int capacityOf(int chunk) {
+
+    return chunk < MAX - 1 ? FIRST << chunk : Integer.MAX_VALUE - startOf(chunk);
+  }
+
+}
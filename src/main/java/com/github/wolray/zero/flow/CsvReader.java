@@ -0,0 +1,413 @@
+package com.github.wolray.zero.flow;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * 分隔符文件的流式读取，支持引号、转义和列投影。 <br/> 直接在解码后的字符缓冲上逐字符解析，只有投影选中的列会被复制到行内，
+ * 其它列只扫描不保存。每条记录都复用同一个{@link Row}，需要保留时调用{@link Row#toArray()}复制
+ *
+ * @author wolray
+ */
+public final class CsvReader {
+
+  private static final int NONE = -1;
+
+  private final char separator;
+
+  private final int quote;
+
+  private final int escape;
+
+  /**
+   * 原始列号到{@link Row}下标的映射，为null时读取所有列
+   */
+  private final int[] slots;
+
+  private final int selected;
+
+  private CsvReader(char separator, int quote, int escape, int[] slots, int selected) {
+
+    this.separator = separator;
+    this.quote     = quote;
+    this.escape    = escape;
+    this.slots     = slots;
+    this.selected  = selected;
+  }
+
+  /**
+   * 逗号分隔，双引号包裹，引号内两个连续的引号表示一个引号
+   */
+  public static CsvReader csv() {
+
+    return of(',');
+  }
+
+  public static CsvReader tsv() {
+
+    return of('\t');
+  }
+
+  public static CsvReader of(char separator) {
+
+    return new CsvReader(separator, '"', NONE, null, 0);
+  }
+
+  public CsvReader withQuote(char quote) {
+
+    return new CsvReader(separator, quote, escape, slots, selected);
+  }
+
+  public CsvReader withoutQuote() {
+
+    return new CsvReader(separator, NONE, escape, slots, selected);
+  }
+
+  /**
+   * 转义符后的一个字符按原样保留，引号内外都生效
+   */
+  public CsvReader withEscape(char escape) {
+
+    return new CsvReader(separator, quote, escape, slots, selected);
+  }
+
+  /**
+   * 只读取指定的列，{@link Row}中的下标按这里给出的顺序排列
+   *
+   * @param columns
+   *     从0开始的原始列号，不能重复
+   */
+  public CsvReader select(int... columns) {
+
+    int max = -1;
+    for (int col : columns) {
+      if (col < 0) {
+        throw new IllegalArgumentException("negative column: " + col);
+      }
+      max = Math.max(max, col);
+    }
+    int[] slots = new int[max + 1];
+    Arrays.fill(slots, NONE);
+    for (int i = 0; i < columns.length; i++) {
+      if (slots[columns[i]] != NONE) {
+        throw new IllegalArgumentException("duplicate column: " + columns[i]);
+      }
+      slots[columns[i]] = i;
+    }
+    return new CsvReader(separator, quote, escape, slots, columns.length);
+  }
+
+  /**
+   * 按数据源的字符集解码并逐条记录解析，空行会被跳过
+   */
+  public ZeroFlow<Row> read(ByteSource source) {
+
+    return c -> source.mapClosable(is -> new InputStreamReader(is, source.charset())).use(r -> new Parser(r).parse(c));
+  }
+
+  public ZeroFlow<Row> read(IOChain<Reader> reader) {
+
+    return c -> reader.mapClosable(r -> r).use(r -> new Parser(r).parse(c));
+  }
+
+  /**
+   * 可复用的一条记录，只包含投影选中的列
+   */
+  public static final class Row {
+
+    private char[] data = new char[256];
+
+    private CharBuffer view;
+
+    private int[] starts;
+
+    private int[] ends;
+
+    private int size;
+
+    private int pos;
+
+    Row(int capacity) {
+
+      this.starts = new int[Math.max(capacity, 16)];
+      this.ends   = new int[starts.length];
+    }
+
+    /**
+     * 选中列的数量，没有投影时为本条记录的列数
+     */
+    public int size() {
+
+      return size;
+    }
+
+    /**
+     * 记录的列数不够时，选中的列可能不存在
+     */
+    public boolean has(int i) {
+
+      return i >= 0 && i < size && starts[i] >= 0;
+    }
+
+    public int length(int i) {
+
+      checkColumn(i);
+      return ends[i] - starts[i];
+    }
+
+    public boolean contentEquals(int i, CharSequence s) {
+
+      checkColumn(i);
+      int from = starts[i], len = ends[i] - from;
+      if (len != s.length()) {
+        return false;
+      }
+      for (int j = 0; j < len; j++) {
+        if (data[from + j] != s.charAt(j)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * 复制出该列的字符串，列不存在时返回null
+     */
+    public String getString(int i) {
+
+      return has(i) ? new String(data, starts[i], ends[i] - starts[i]) : null;
+    }
+
+    /**
+     * 以下的类型读取都直接在行内的字符上解析，不创建字符串
+     *
+     * @see Parsers
+     */
+    public int getInt(int i) {
+
+      checkColumn(i);
+      return Parsers.parseInt(view(), starts[i], ends[i]);
+    }
+
+    public long getLong(int i) {
+
+      checkColumn(i);
+      return Parsers.parseLong(view(), starts[i], ends[i]);
+    }
+
+    public double getDouble(int i) {
+
+      checkColumn(i);
+      return Parsers.parseDouble(view(), starts[i], ends[i]);
+    }
+
+    public long getEpochMillis(int i) {
+
+      checkColumn(i);
+      return Parsers.parseEpochMillis(view(), starts[i], ends[i]);
+    }
+
+    public String[] toArray() {
+
+      String[] array = new String[size];
+      for (int i = 0; i < size; i++) {
+        array[i] = getString(i);
+      }
+      return array;
+    }
+
+    @Override
+    public String toString() {
+
+      return Arrays.toString(toArray());
+    }
+
+    private CharBuffer view() {
+
+      if (view == null || view.array() != data) {
+        view = CharBuffer.wrap(data);
+      }
+      return view;
+    }
+
+    private void checkColumn(int i) {
+
+      if (!has(i)) {
+        throw new IndexOutOfBoundsException("Column: " + i + ", Size: " + size);
+      }
+    }
+
+    void clear(int size) {
+
+      this.size = size;
+      this.pos  = 0;
+      Arrays.fill(starts, 0, size, NONE);
+    }
+
+    void begin(int slot) {
+
+      if (slot >= starts.length) {
+        starts = Arrays.copyOf(starts, Math.max(slot + 1, starts.length << 1));
+        ends   = Arrays.copyOf(ends, starts.length);
+      }
+      if (slot >= size) {
+        size = slot + 1;
+      }
+      starts[slot] = pos;
+    }
+
+    void end(int slot) {
+
+      ends[slot] = pos;
+    }
+
+    void append(char[] chars, int from, int to) {
+
+      int n = to - from;
+      if (pos + n > data.length) {
+        data = Arrays.copyOf(data, Math.max(pos + n, data.length << 1));
+      }
+      System.arraycopy(chars, from, data, pos, n);
+      pos += n;
+    }
+
+    void append(int ch) {
+
+      if (pos == data.length) {
+        data = Arrays.copyOf(data, pos << 1);
+      }
+      data[pos++] = (char) ch;
+    }
+
+  }
+
+  private final class Parser {
+
+    final Reader reader;
+
+    final char[] buf = new char[8192];
+
+    final Row row = new Row(selected);
+
+    int pos;
+
+    int limit;
+
+    Parser(Reader reader) {
+
+      this.reader = reader;
+    }
+
+    int read() throws IOException {
+
+      if (pos == limit) {
+        int n;
+        do {
+          n = reader.read(buf, 0, buf.length);
+        } while (n == 0);
+        if (n < 0) {
+          return NONE;
+        }
+        pos   = 0;
+        limit = n;
+      }
+      return buf[pos++];
+    }
+
+    void parse(Consumer<Row> consumer) throws IOException {
+
+      int ch = read();
+      while (ch != NONE) {
+        if (ch == '\n' || ch == '\r') {
+          ch = read();
+          continue;
+        }
+        row.clear(selected);
+        for (int column = 0; ; column++) {
+          int slot = slots == null ? column : column < slots.length ? slots[column] : NONE;
+          if (slot != NONE) {
+            row.begin(slot);
+            ch = field(ch, true);
+            row.end(slot);
+          } else {
+            ch = field(ch, false);
+          }
+          if (ch != separator) {
+            break;
+          }
+          ch = read();
+        }
+        consumer.accept(row);
+        if (ch != NONE) {
+          ch = read();
+        }
+      }
+    }
+
+    /**
+     * 从字段的第一个字符开始解析到分隔符、换行或结尾
+     *
+     * @return 结束字段的字符
+     */
+    int field(int ch, boolean keep) throws IOException {
+
+      boolean quoted = false;
+      if (ch == quote) {
+        quoted = true;
+        ch     = read();
+      }
+      while (ch != NONE) {
+        if (ch == escape) {
+          ch = read();
+          if (ch == NONE) {
+            break;
+          }
+        } else if (quoted) {
+          if (ch == quote) {
+            ch = read();
+            if (ch != quote) {
+              //引号结束，之后的字符按普通字符处理
+              quoted = false;
+              continue;
+            }
+          }
+        } else if (ch == separator || ch == '\n' || ch == '\r') {
+          return ch;
+        }
+        if (keep) {
+          row.append(ch);
+        }
+        if (!quoted) {
+          scanPlain(keep);
+        }
+        ch = read();
+      }
+      return NONE;
+    }
+
+    /**
+     * 引号外的普通字符直接在缓冲上成段扫描
+     */
+    void scanPlain(boolean keep) {
+
+      char[] b = buf;
+      int    p = pos, l = limit;
+      for (; p < l; p++) {
+        char c = b[p];
+        if (c == separator || c == escape || c <= '\r' && (c == '\n' || c == '\r')) {
+          break;
+        }
+      }
+      if (keep) {
+        row.append(b, pos, p);
+      }
+      pos = p;
+    }
+
+  }
+
+}
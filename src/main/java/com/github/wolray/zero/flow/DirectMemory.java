@@ -0,0 +1,63 @@
+package com.github.wolray.zero.flow;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * 直接内存的主动释放。 <br/> 基线是Java 8，释放方法只在类加载时反射查找一次：JDK 9+用{@code Unsafe.invokeCleaner}，
+ * JDK 8用缓冲自带的Cleaner，都找不到时交给GC回收
+ *
+ * @author wolray
+ */
+final class DirectMemory {
+
+  private static final Cleaner CLEANER = lookup();
+
+  private DirectMemory() {
+
+  }
+
+  /**
+   * 释放直接内存或内存映射，调用后不能再访问该缓冲
+   */
+  static void free(ByteBuffer buffer) {
+
+    if (CLEANER != null && buffer.isDirect()) {
+      try {
+        CLEANER.free(buffer);
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        // 交给GC回收
+      }
+    }
+  }
+
+  private static Cleaner lookup() {
+
+    try {
+      // JDK 9+
+      Class<?> cls    = Class.forName("sun.misc.Unsafe");
+      Field    field  = cls.getDeclaredField("theUnsafe");
+      Method   invoke = cls.getMethod("invokeCleaner", ByteBuffer.class);
+      field.setAccessible(true);
+      Object unsafe = field.get(null);
+      return b -> invoke.invoke(unsafe, b);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      try {
+        // JDK 8
+        Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+        Method clean   = Class.forName("sun.misc.Cleaner").getMethod("clean");
+        return b -> clean.invoke(cleaner.invoke(b));
+      } catch (ReflectiveOperationException | RuntimeException ex) {
+        return null;
+      }
+    }
+  }
+
+  interface Cleaner {
+
+    void free(ByteBuffer buffer) throws ReflectiveOperationException;
+
+  }
+
+}
@@ -0,0 +1,745 @@
+package com.github.wolray.zero.flow;
+
+import com.github.wolray.zero.flow.pair.DoublePair;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashSet;
+import java.util.OptionalDouble;
+import java.util.function.BiFunction;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleSupplier;
+import java.util.function.DoubleToIntFunction;
+import java.util.function.DoubleToLongFunction;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * @author wolray
+ */
+public interface DoubleZeroFlow extends BaseZeroFlow<DoubleConsumer> {
+
+  DoubleZeroFlow empty = c -> {
+  };
+
+  DoubleConsumer nothing = t -> {
+  };
+
+  static DoubleZeroFlow gen(double seed, DoubleUnaryOperator operator) {
+
+    return c -> {
+      double t = seed;
+      c.accept(t);
+      while (true) {
+        c.accept(t = operator.applyAsDouble(t));
+      }
+    };
+  }
+
+  static DoubleZeroFlow gen(double seed1, double seed2, DoubleBinaryOperator operator) {
+
+    return c -> {
+      double t1 = seed1, t2 = seed2;
+      c.accept(t1);
+      c.accept(t2);
+      while (true) {
+        c.accept(t2 = operator.applyAsDouble(t1, t1 = t2));
+      }
+    };
+  }
+
+  static DoubleZeroFlow gen(DoubleSupplier supplier) {
+
+    return c -> {
+      while (true) {
+        c.accept(supplier.getAsDouble());
+      }
+    };
+  }
+
+  static DoubleZeroFlow of(double... ts) {
+
+    return c -> {
+      for (double t : ts) {
+        c.accept(t);
+      }
+    };
+  }
+
+  static DoubleZeroFlow range(double start, double stop) {
+
+    return range(start, stop, 1);
+  }
+
+  /**
+   * 第i个元素为start + i * step，不累加step以免误差积累
+   */
+  static DoubleZeroFlow range(double start, double stop, double step) {
+
+    if (step == 0 || Double.isNaN(step)) {
+      throw new IllegalArgumentException("step is 0 or NaN");
+    }
+    return c -> {
+      double t = start;
+      for (long i = 1; step > 0 ? t < stop : t > stop; i++) {
+        c.accept(t);
+        t = start + i * step;
+      }
+    };
+  }
+
+  static DoubleZeroFlow range(double stop) {
+
+    return range(0, stop, 1);
+  }
+
+  static DoubleZeroFlow repeat(int n, double value) {
+
+    return c -> {
+      for (int i = 0; i < n; i++) {
+        c.accept(value);
+      }
+    };
+  }
+
+  default boolean all(DoublePredicate predicate) {
+
+    return !find(predicate.negate()).isPresent();
+  }
+
+  default OptionalDouble find(DoublePredicate predicate) {
+
+    Mutable<Double> m = new Mutable<>(null);
+    consumeTillStop(t -> {
+      if (predicate.test(t)) {
+        m.set(t);
+        ZeroFlow.stop();
+      }
+    });
+    return m.isSet ? OptionalDouble.of(m.it) : OptionalDouble.empty();
+  }
+
+  default boolean anyNot(DoublePredicate predicate) {
+
+    return any(predicate.negate());
+  }
+
+  default boolean any(DoublePredicate predicate) {
+
+    return find(predicate).isPresent();
+  }
+
+  default DoubleZeroFlow append(double t) {
+
+    return c -> {
+      consume(c);
+      c.accept(t);
+    };
+  }
+
+  default DoubleZeroFlow append(double... t) {
+
+    return c -> {
+      consume(c);
+      for (double x : t) {
+        c.accept(x);
+      }
+    };
+  }
+
+  default DoubleZeroFlow appendWith(DoubleZeroFlow seq) {
+
+    return c -> {
+      consume(c);
+      seq.consume(c);
+    };
+  }
+
+  default double average() {
+
+    return average(null);
+  }
+
+  default double average(DoubleUnaryOperator weightFunction) {
+
+    double[] a = {0, 0};
+    consume(t -> {
+      if (weightFunction != null) {
+        double w = weightFunction.applyAsDouble(t);
+        a[0] += t * w;
+        a[1] += w;
+      } else {
+        a[0] += t;
+        a[1] += 1;
+      }
+    });
+    return a[1] != 0 ? a[0] / a[1] : 0;
+  }
+
+  default ZeroFlow<Double> boxed() {
+
+    return c -> consume(c::accept);
+  }
+
+  default DoubleZeroFlow circle() {
+
+    return c -> {
+      while (true) {
+        consume(c);
+      }
+    };
+  }
+
+  default void consumeIndexedTillStop(IndexDoubleConsumer consumer) {
+
+    int[] a = {0};
+    consumeTillStop(t -> consumer.accept(a[0]++, t));
+  }
+
+  default int count() {
+
+    return reduce(new int[1], (a, t) -> a[0]++)[0];
+  }
+
+  default <E> E reduce(E des, ObjDoubleConsumer<E> consumer) {
+
+    consume(t -> consumer.accept(des, t));
+    return des;
+  }
+
+  default int countNot(DoublePredicate predicate) {
+
+    return count(predicate.negate());
+  }
+
+  default int count(DoublePredicate predicate) {
+
+    return reduce(new int[1], (a, t) -> {
+      if (predicate.test(t)) {
+        a[0]++;
+      }
+    })[0];
+  }
+
+  default DoubleZeroFlow distinct() {
+
+    return distinctBy(i -> i);
+  }
+
+  default <E> DoubleZeroFlow distinctBy(DoubleFunction<E> function) {
+
+    return c -> reduce(new HashSet<>(), (set, t) -> {
+      if (set.add(function.apply(t))) {
+        c.accept(t);
+      }
+    });
+  }
+
+  default DoubleZeroFlow drop(int n) {
+
+    return n <= 0 ? this : partial(n, nothing);
+  }
+
+  default DoubleZeroFlow partial(int n, DoubleConsumer substitute) {
+
+    return c -> consume(c, n, substitute);
+  }
+
+  default void consume(DoubleConsumer consumer, int n, DoubleConsumer substitute) {
+
+    if (n > 0) {
+      int[] a = {n - 1};
+      consume(t -> {
+        if (a[0] < 0) {
+          consumer.accept(t);
+        } else {
+          a[0]--;
+          substitute.accept(t);
+        }
+      });
+    } else {
+      consume(consumer);
+    }
+  }
+
+  default DoubleZeroFlow dropWhile(DoublePredicate predicate) {
+
+    return c -> foldBoolean(false, (b, t) -> {
+      if (b || !predicate.test(t)) {
+        c.accept(t);
+        return true;
+      }
+      return false;
+    });
+  }
+
+  default boolean foldBoolean(boolean init, BoolDoubleToBool function) {
+
+    boolean[] a = {init};
+    consume(i -> a[0] = function.apply(a[0], i));
+    return a[0];
+  }
+
+  default DoubleZeroFlow duplicateAll(int times) {
+
+    return c -> {
+      for (int i = 0; i < times; i++) {
+        consume(c);
+      }
+    };
+  }
+
+  default DoubleZeroFlow duplicateEach(int times) {
+
+    return c -> consume(t -> {
+      for (int i = 0; i < times; i++) {
+        c.accept(t);
+      }
+    });
+  }
+
+  default DoubleZeroFlow duplicateIf(int times, DoublePredicate predicate) {
+
+    return c -> consume(t -> {
+      if (predicate.test(t)) {
+        for (int i = 0; i < times; i++) {
+          c.accept(t);
+        }
+      } else {
+        c.accept(t);
+      }
+    });
+  }
+
+  default DoubleZeroFlow filter(int n, DoublePredicate predicate) {
+
+    return c -> consume(c, n, t -> {
+      if (predicate.test(t)) {
+        c.accept(t);
+      }
+    });
+  }
+
+  default DoubleZeroFlow filterIndexed(IndexDoublePredicate predicate) {
+
+    return c -> consumeIndexed((i, t) -> {
+      if (predicate.test(i, t)) {
+        c.accept(t);
+      }
+    });
+  }
+
+  default void consumeIndexed(IndexDoubleConsumer consumer) {
+
+    int[] a = {0};
+    consume(t -> consumer.accept(a[0]++, t));
+  }
+
+  default DoubleZeroFlow filterNot(DoublePredicate predicate) {
+
+    return filter(predicate.negate());
+  }
+
+  default DoubleZeroFlow filter(DoublePredicate predicate) {
+
+    return c -> consume(t -> {
+      if (predicate.test(t)) {
+        c.accept(t);
+      }
+    });
+  }
+
+  default OptionalDouble findNot(DoublePredicate predicate) {
+
+    return find(predicate.negate());
+  }
+
+  default OptionalDouble first() {
+
+    return find(t -> true);
+  }
+
+  default DoubleZeroFlow flatMap(DoubleFunction<DoubleZeroFlow> function) {
+
+    return c -> consume(t -> function.apply(t).consume(c));
+  }
+
+  default int foldInt(int init, IntDoubleToInt function) {
+
+    int[] a = {init};
+    consume(i -> a[0] = function.apply(a[0], i));
+    return a[0];
+  }
+
+  default long foldLong(long init, LongDoubleToLong function) {
+
+    long[] a = {init};
+    consume(i -> a[0] = function.apply(a[0], i));
+    return a[0];
+  }
+
+  default OptionalDouble lastNot(DoublePredicate predicate) {
+
+    return last(predicate.negate());
+  }
+
+  default OptionalDouble last(DoublePredicate predicate) {
+
+    return filter(predicate).last();
+  }
+
+  default OptionalDouble last() {
+
+    Mutable<Double> m = new Mutable<>(null);
+    consume(m::set);
+    return m.isSet ? OptionalDouble.of(m.it) : OptionalDouble.empty();
+  }
+
+  default DoubleZeroFlow map(DoubleUnaryOperator function) {
+
+    return c -> consume(t -> c.accept(function.applyAsDouble(t)));
+  }
+
+  default DoubleZeroFlow mapIndexed(IndexDoubleToDouble function) {
+
+    return c -> consumeIndexed((i, t) -> c.accept(function.apply(i, t)));
+  }
+
+  default IntZeroFlow mapToInt(DoubleToIntFunction function) {
+
+    return c -> consume(t -> c.accept(function.applyAsInt(t)));
+  }
+
+  default LongZeroFlow mapToLong(DoubleToLongFunction function) {
+
+    return c -> consume(t -> c.accept(function.applyAsLong(t)));
+  }
+
+  default <E> ZeroFlow<E> mapToObj(DoubleFunction<E> function, int n, DoubleFunction<E> substitute) {
+
+    return n <= 0 ? mapToObj(function) : c -> {
+      int[] a = {n - 1};
+      consume(t -> {
+        if (a[0] < 0) {
+          c.accept(function.apply(t));
+        } else {
+          a[0]--;
+          c.accept(substitute.apply(t));
+        }
+      });
+    };
+  }
+
+  default <E> ZeroFlow<E> mapToObj(DoubleFunction<E> function) {
+
+    return c -> consume(t -> c.accept(function.apply(t)));
+  }
+
+  default Double max() {
+
+    return fold(null, (f, t) -> f == null || f < t ? t : f);
+  }
+
+  default <E> E fold(E init, ObjDoubleToObj<E> function) {
+
+    Mutable<E> m = new Mutable<>(init);
+    consume(t -> m.it = function.apply(m.it, t));
+    return m.it;
+  }
+
+  default <V extends Comparable<V>> DoublePair<V> max(DoubleFunction<V> function) {
+
+    return reduce(new DoublePair<>(0, null), (p, t) -> {
+      V v = function.apply(t);
+      if (p.second == null || p.second.compareTo(v) < 0) {
+        p.first  = t;
+        p.second = v;
+      }
+    });
+  }
+
+  default Double min() {
+
+    return fold(null, (f, t) -> f == null || f > t ? t : f);
+  }
+
+  default <V extends Comparable<V>> DoublePair<V> min(DoubleFunction<V> function) {
+
+    return reduce(new DoublePair<>(0, null), (p, t) -> {
+      V v = function.apply(t);
+      if (p.second == null || p.second.compareTo(v) > 0) {
+        p.first  = t;
+        p.second = v;
+      }
+    });
+  }
+
+  default boolean none(DoublePredicate predicate) {
+
+    return !find(predicate).isPresent();
+  }
+
+  default DoubleZeroFlow onEach(int n, DoubleConsumer consumer) {
+
+    return c -> consume(c, n, consumer.andThen(c));
+  }
+
+  default DoubleZeroFlow onEach(DoubleConsumer consumer) {
+
+    return c -> consume(consumer.andThen(c));
+  }
+
+  default DoubleZeroFlow onEachIndexed(IndexDoubleConsumer consumer) {
+
+    return c -> consumeIndexed((i, t) -> {
+      consumer.accept(i, t);
+      c.accept(t);
+    });
+  }
+
+  default DoubleZeroFlow replace(int n, DoubleUnaryOperator operator) {
+
+    return c -> consume(c, n, t -> c.accept(operator.applyAsDouble(t)));
+  }
+
+  /**
+   * @return {@link DoubleZeroFlow }
+   *
+   * @see ItrZeroFlow#fold(Object, BiFunction)
+   */
+  default DoubleZeroFlow runningFold(double init, DoubleBinaryOperator function) {
+
+    return c -> foldDouble(init, (acc, t) -> {
+      acc = function.applyAsDouble(acc, t);
+      c.accept(acc);
+      return acc;
+    });
+  }
+
+  default double foldDouble(double init, DoubleBinaryOperator function) {
+
+    double[] a = {init};
+    consume(i -> a[0] = function.applyAsDouble(a[0], i));
+    return a[0];
+  }
+
+  default double sum() {
+
+    return reduce(new double[1], (a, t) -> a[0] += t)[0];
+  }
+
+  default double sum(DoubleUnaryOperator function) {
+
+    return reduce(new double[1], (a, t) -> a[0] += function.applyAsDouble(t))[0];
+  }
+
+  default DoubleZeroFlow take(int n) {
+
+    return n <= 0 ? empty : c -> {
+      int[] i = {n};
+      consumeTillStop(t -> {
+        if (i[0]-- > 0) {
+          c.accept(t);
+        } else {
+          ZeroFlow.stop();
+        }
+      });
+    };
+  }
+
+  default DoubleZeroFlow takeWhile(DoublePredicate predicate) {
+
+    return c -> consumeTillStop(t -> {
+      if (predicate.test(t)) {
+        c.accept(t);
+      } else {
+        ZeroFlow.stop();
+      }
+    });
+  }
+
+  default double[] toArray() {
+
+    return toBatched().toArray();
+  }
+
+  default Batched toBatched() {
+
+    return reduce(new Batched(), Batched::add);
+  }
+
+  /**
+   * 收集到堆外的缓冲，用完需要{@link OffHeap#close()}
+   */
+  default OffHeap offHeap() {
+
+    return reduce(new OffHeap(), OffHeap::add);
+  }
+
+  interface ObjDoubleConsumer<E> {
+
+    void accept(E e, double t);
+
+  }
+
+  interface ObjDoubleToObj<E> {
+
+    E apply(E e, double t);
+
+  }
+
+  interface IntDoubleToInt {
+
+    int apply(int acc, double t);
+
+  }
+
+  interface LongDoubleToLong {
+
+    long apply(long acc, double t);
+
+  }
+
+  interface BoolDoubleToBool {
+
+    boolean apply(boolean acc, double t);
+
+  }
+
+  interface IndexDoubleConsumer {
+
+    void accept(int i, double t);
+
+  }
+
+  interface IndexDoublePredicate {
+
+    boolean test(int i, double t);
+
+  }
+
+  interface IndexDoubleToDouble {
+
+    double apply(int i, double t);
+
+  }
+
+  class Batched implements DoubleZeroFlow {
+
+    private final double[][] chunks = new double[Chunks.MAX][];
+
+    public int size;
+
+    @Override
+    public void consume(DoubleConsumer consumer) {
+
+      for (int k = 0, pos = 0; pos < size; k++) {
+        double[] chunk = chunks[k];
+        int      n     = Math.min(size - pos, chunk.length);
+        for (int i = 0; i < n; i++) {
+          consumer.accept(chunk[i]);
+        }
+        pos += n;
+      }
+    }
+
+    public double get(int index) {
+
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+      }
+      int k = Chunks.chunkOf(index);
+      return chunks[k][index - Chunks.startOf(k)];
+    }
+
+    @Override
+    public double[] toArray() {
+
+      double[] a = new double[size];
+      for (int k = 0, pos = 0; pos < size; k++) {
+        int n = Math.min(size - pos, chunks[k].length);
+        System.arraycopy(chunks[k], 0, a, pos, n);
+        pos += n;
+      }
+      return a;
+    }
+
+    public void add(double t) {
+
+      int      k     = Chunks.chunkOf(size);
+      double[] chunk = chunks[k];
+      if (chunk == null) {
+        chunk = chunks[k] = new double[Chunks.capacityOf(k)];
+      }
+      chunk[size - Chunks.startOf(k)] = t;
+      size++;
+    }
+
+  }
+
+  /**
+   * 堆外的缓冲，数据不占用堆，用完需要{@link #close()}
+   *
+   * @see OffHeapBuffer
+   */
+  class OffHeap extends OffHeapBuffer implements DoubleZeroFlow {
+
+    public OffHeap() {
+
+      super(Double.BYTES);
+    }
+
+    @Override
+    public void consume(DoubleConsumer consumer) {
+
+      checkOpen();
+      for (int base = 0; base < size; base += mask + 1) {
+        ByteBuffer seg = segment(base);
+        int        n   = Math.min(size - base, mask + 1);
+        for (int i = 0; i < n; i++) {
+          consumer.accept(seg.getDouble(i << 3));
+        }
+      }
+    }
+
+    public double get(int index) {
+
+      checkIndex(index);
+      return segment(index).getDouble((index & mask) << 3);
+    }
+
+    public void set(int index, double t) {
+
+      checkIndex(index);
+      segment(index).putDouble((index & mask) << 3, t);
+    }
+
+    public void add(double t) {
+
+      tail().putDouble((size & mask) << 3, t);
+      size++;
+    }
+
+    @Override
+    public int count() {
+
+      checkOpen();
+      return size;
+    }
+
+    @Override
+    public double[] toArray() {
+
+      checkOpen();
+      double[] a = new double[size];
+      for (int base = 0; base < size; base += mask + 1) {
+        ByteBuffer seg = segment(base).duplicate().order(ByteOrder.nativeOrder());
+        seg.asDoubleBuffer().get(a, base, Math.min(size - base, mask + 1));
+      }
+      return a;
+    }
+
+  }
+
+}
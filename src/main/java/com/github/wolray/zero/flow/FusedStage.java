@@ -0,0 +1,69 @@
+package com.github.wolray.zero.flow;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * {@link FusedZeroFlow}中一级操作的模板。 <br/> 每种(操作, 函数类型, 下一级类型)都会在独立的类加载器中重新定义一份，
+ * 其中对函数和下一级的调用点因此只见到一种类型，JIT可以把整条操作链内联成一个循环体。
+ * 重新定义的副本不在原来的运行时包中，所以这里只能引用java.*的类型
+ *
+ * @author wolray
+ */
+final class FusedStage implements Consumer<Object> {
+
+  static final int MAP = 0;
+
+  static final int FILTER = 1;
+
+  static final int MAP_NOT_NULL = 2;
+
+  static final int ON_EACH = 3;
+
+  static final int FILTER_INSTANCE = 4;
+
+  final int op;
+
+  final Object fn;
+
+  final Consumer<Object> next;
+
+  FusedStage(int op, Object fn, Consumer<Object> next) {
+
+    this.op   = op;
+    this.fn   = fn;
+    this.next = next;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public void accept(Object o) {
+
+    switch (op) {
+      case MAP:
+        next.accept(((Function<Object, Object>) fn).apply(o));
+        break;
+      case FILTER:
+        if (((Predicate<Object>) fn).test(o)) {
+          next.accept(o);
+        }
+        break;
+      case MAP_NOT_NULL:
+        Object e = ((Function<Object, Object>) fn).apply(o);
+        if (e != null) {
+          next.accept(e);
+        }
+        break;
+      case ON_EACH:
+        ((Consumer<Object>) fn).accept(o);
+        next.accept(o);
+        break;
+      default:
+        if (((Class<?>) fn).isInstance(o)) {
+          next.accept(o);
+        }
+    }
+  }
+
+}
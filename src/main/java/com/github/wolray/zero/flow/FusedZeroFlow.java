@@ -0,0 +1,197 @@
+package com.github.wolray.zero.flow;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 融合的流。相邻的无状态操作（map/filter/mapNotNull/onEach/filterInstance）只记录到操作链中，
+ * 终端消费时按流水线的形状编译成一串{@link FusedStage}。 <br/> 默认的lambda实现里，每个操作的调用点被所有流水线共享，
+ * 形状一多就变成多态而无法内联；这里每种形状都有各自的类，调用点保持单态，整条链可以内联到源头的循环里。
+ * 其它操作仍走默认的lambda实现，下游为{@link Sink}时取消状态照常传给源头
+ *
+ * @author wolray
+ * @see ZeroFlow#fuse()
+ */
+public class FusedZeroFlow<T> implements ZeroFlow<T> {
+
+  /**
+   * 最多特化的形状数，超过后新形状共用{@link FusedStage}本身
+   */
+  static final int MAX_SHAPES = 4096;
+
+  private static final Map<List<Object>, Constructor<?>> SHAPES = new ConcurrentHashMap<>();
+
+  private static final byte[] TEMPLATE = template();
+
+  private final ZeroFlow<Object> source;
+
+  private final int[] ops;
+
+  private final Object[] stages;
+
+  private FusedZeroFlow(ZeroFlow<Object> source, int[] ops, Object[] stages) {
+
+    this.source = source;
+    this.ops    = ops;
+    this.stages = stages;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <T> FusedZeroFlow<T> of(ZeroFlow<T> source) {
+
+    return source instanceof FusedZeroFlow ? (FusedZeroFlow<T>) source :
+           new FusedZeroFlow<>((ZeroFlow<Object>) source, new int[0], new Object[0]);
+  }
+
+  /**
+   * 操作链长度，即已融合的操作数
+   */
+  public int depth() {
+
+    return ops.length;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public void consume(Consumer<T> consumer) {
+
+    if (ops.length == 0) {
+      source.consume((Consumer<Object>) consumer);
+      return;
+    }
+    Consumer<Object> next = (Consumer<Object>) consumer;
+    for (int i = ops.length - 1; i >= 0; i--) {
+      next = stage(ops[i], stages[i], next);
+    }
+    source.consume(Sink.relay(consumer, next));
+  }
+
+  @Override
+  public <E> FusedZeroFlow<E> map(Function<T, E> function) {
+
+    return then(FusedStage.MAP, function);
+  }
+
+  @Override
+  public FusedZeroFlow<T> filter(Predicate<T> predicate) {
+
+    return predicate == null ? this : then(FusedStage.FILTER, predicate);
+  }
+
+  @Override
+  public <E> FusedZeroFlow<E> mapNotNull(Function<T, E> function) {
+
+    return then(FusedStage.MAP_NOT_NULL, function);
+  }
+
+  @Override
+  public FusedZeroFlow<T> onEach(Consumer<T> consumer) {
+
+    return then(FusedStage.ON_EACH, consumer);
+  }
+
+  @Override
+  public <E> FusedZeroFlow<E> filterInstance(Class<E> cls) {
+
+    return then(FusedStage.FILTER_INSTANCE, cls);
+  }
+
+  @Override
+  public FusedZeroFlow<T> fuse() {
+
+    return this;
+  }
+
+  private <E> FusedZeroFlow<E> then(int op, Object stage) {
+
+    int      n         = ops.length;
+    int[]    newOps    = Arrays.copyOf(ops, n + 1);
+    Object[] newStages = Arrays.copyOf(stages, n + 1);
+    newOps[n]    = op;
+    newStages[n] = stage;
+    return new FusedZeroFlow<>(source, newOps, newStages);
+  }
+
+  /**
+   * 特化类的数量只与形状有关，同一处代码构造的流水线重复消费时复用已定义的类
+   */
+  @SuppressWarnings("unchecked")
+  static Consumer<Object> stage(int op, Object fn, Consumer<Object> next) {
+
+    if (TEMPLATE == null) {
+      return new FusedStage(op, fn, next);
+    }
+    List<Object>   shape       = Arrays.asList(op, op == FusedStage.FILTER_INSTANCE ? null : fn.getClass(), next.getClass());
+    Constructor<?> constructor = SHAPES.get(shape);
+    if (constructor == null) {
+      if (SHAPES.size() >= MAX_SHAPES) {
+        return new FusedStage(op, fn, next);
+      }
+      constructor = SHAPES.computeIfAbsent(shape, k -> specialize());
+    }
+    try {
+      return (Consumer<Object>) constructor.newInstance(op, fn, next);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static Constructor<?> specialize() {
+
+    try {
+      Class<?>       cls         = new StageLoader().define();
+      Constructor<?> constructor = cls.getDeclaredConstructor(int.class, Object.class, Consumer.class);
+      constructor.setAccessible(true);
+      return constructor;
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * 读取{@link FusedStage}的字节码，读不到时（如非常规的打包方式）不做特化
+   */
+  private static byte[] template() {
+
+    try (InputStream in = FusedStage.class.getResourceAsStream("FusedStage.class")) {
+      if (in == null) {
+        return null;
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[]                buf = new byte[4096];
+      for (int n; (n = in.read(buf)) > 0; ) {
+        out.write(buf, 0, n);
+      }
+      return out.toByteArray();
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * 每个加载器只定义一份{@link FusedStage}的副本
+   */
+  private static final class StageLoader extends ClassLoader {
+
+    StageLoader() {
+
+      super(FusedStage.class.getClassLoader());
+    }
+
+    Class<?> define() {
+
+      return defineClass(FusedStage.class.getName(), TEMPLATE, 0, TEMPLATE.length, FusedStage.class.getProtectionDomain());
+    }
+
+  }
+
+}
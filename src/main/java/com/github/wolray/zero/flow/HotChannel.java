@@ -5,7 +5,9 @@ import java.util.function.Consumer;
 
 /**
  * @author wolray
+ * @deprecated 使用有界无锁的{@link RingChannel}
  */
+@Deprecated
 public class HotChannel<T> extends ConcurrentLinkedQueue<T> implements ZeroFlow<T>, Async.EasyLock {
 
   public boolean stop;
@@ -104,8 +104,9 @@ public interface IOChain<T> {
   default <E> ZeroFlow<E> toSeq(Function<T, E> provider) {
 
     return c -> use(t -> {
-      E e;
-      while ((e = provider.apply(t)) != null) {
+      Sink.Signal signal = Sink.Signal.of(c);
+      E           e;
+      while ((signal == null || !signal.poll()) && (e = provider.apply(t)) != null) {
         c.accept(e);
       }
     });
@@ -0,0 +1,134 @@
+package com.github.wolray.zero.flow;
+
+import java.util.function.Consumer;
+
+/**
+ * 流水线的阶段级埋点。 <br/> 关闭时{@link ZeroFlow#instrument(String)}在构建流水线时直接返回原流，没有任何运行时开销；
+ * 开启时每个标记点统计流过的元素数、下游的耗时和短路次数，并与同一线程上最近的上游标记点关联，
+ * 得到两个标记点之间的输入数和自身耗时。每个元素会多两次{@link System#nanoTime()}，只适合排查问题时打开
+ *
+ * @author wolray
+ * @see MetricsRegistry
+ */
+public final class Instrumentation {
+
+  private static final MetricsRegistry.InMemory DEFAULT = MetricsRegistry.inMemory();
+
+  /**
+   * 当前线程上正在建立的最内层标记点，用于把上游标记点挂到下游标记点上
+   */
+  private static final ThreadLocal<Probe<?>> CURRENT = new ThreadLocal<>();
+
+  private static volatile MetricsRegistry registry;
+
+  private Instrumentation() {
+
+  }
+
+  /**
+   * 使用默认的内存registry开启
+   */
+  public static MetricsRegistry.InMemory enable() {
+
+    enable(DEFAULT);
+    return DEFAULT;
+  }
+
+  /**
+   * 只影响之后构建的流水线
+   */
+  public static void enable(MetricsRegistry registry) {
+
+    if (registry == null) {
+      throw new IllegalArgumentException("null registry");
+    }
+    Instrumentation.registry = registry;
+  }
+
+  public static void disable() {
+
+    registry = null;
+  }
+
+  public static boolean isEnabled() {
+
+    return registry != null;
+  }
+
+  /**
+   * @return 关闭时为null
+   */
+  public static MetricsRegistry registry() {
+
+    return registry;
+  }
+
+  static <T> ZeroFlow<T> wrap(String stage, ZeroFlow<T> upstream) {
+
+    MetricsRegistry r = registry;
+    return r == null ? upstream : c -> run(r, stage, upstream, c);
+  }
+
+  private static <T> void run(MetricsRegistry registry, String stage, ZeroFlow<T> upstream, Consumer<T> consumer) {
+
+    Probe<T> probe = new Probe<>(consumer);
+    Probe<?> down  = CURRENT.get();
+    //下游标记点还没有收到元素时，当前标记点就是它的上游。两个标记点之间没有别的标记、只有flatMap内部的流带标记时，
+    //内部的标记会被当作上游，这种情况应在flatMap之前再加一个标记
+    if (down != null && down.out == 0 && down.upstream == null) {
+      down.upstream = probe;
+    }
+    CURRENT.set(probe);
+    long start = System.nanoTime();
+    try {
+      upstream.consume(Sink.relay(consumer, probe));
+    } finally {
+      long total = System.nanoTime() - start;
+      if (down != null) {
+        CURRENT.set(down);
+      } else {
+        CURRENT.remove();
+      }
+      Sink.Signal signal  = Sink.Signal.of(consumer);
+      boolean     stopped = probe.stopped || signal != null && signal.isCancelled();
+      Probe<?>    up      = probe.upstream;
+      long        self    = (up != null ? up.downstreamNanos : total) - probe.downstreamNanos;
+      registry.record(stage, up != null ? up.out : -1, probe.out, self, probe.downstreamNanos, stopped);
+    }
+  }
+
+  private static final class Probe<T> implements Consumer<T> {
+
+    final Consumer<T> downstream;
+
+    Probe<?> upstream;
+
+    long out;
+
+    long downstreamNanos;
+
+    boolean stopped;
+
+    Probe(Consumer<T> downstream) {
+
+      this.downstream = downstream;
+    }
+
+    @Override
+    public void accept(T t) {
+
+      out++;
+      long start = System.nanoTime();
+      try {
+        downstream.accept(t);
+      } catch (StopException e) {
+        stopped = true;
+        throw e;
+      } finally {
+        downstreamNanos += System.nanoTime() - start;
+      }
+    }
+
+  }
+
+}
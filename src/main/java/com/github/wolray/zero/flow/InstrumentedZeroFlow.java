@@ -0,0 +1,82 @@
+package com.github.wolray.zero.flow;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 整条流水线的埋点，之后的常用操作（map/filter/mapNotNull/onEach/flatMap/take/takeWhile）各自成为一个阶段，
+ * 阶段名为{@code 流水线名/序号:操作名}，其它操作之后的部分不再自动埋点
+ *
+ * @author wolray
+ * @see ZeroFlow#instrumentAll(String)
+ */
+class InstrumentedZeroFlow<T> implements ZeroFlow<T> {
+
+  private final String pipeline;
+
+  private final int index;
+
+  private final ZeroFlow<T> flow;
+
+  InstrumentedZeroFlow(String pipeline, int index, String op, ZeroFlow<T> flow) {
+
+    this.pipeline = pipeline;
+    this.index    = index;
+    this.flow     = Instrumentation.wrap(pipeline + "/" + index + ":" + op, flow);
+  }
+
+  @Override
+  public void consume(Consumer<T> consumer) {
+
+    flow.consume(consumer);
+  }
+
+  @Override
+  public <E> ZeroFlow<E> map(Function<T, E> function) {
+
+    return then("map", flow.map(function));
+  }
+
+  @Override
+  public ZeroFlow<T> filter(Predicate<T> predicate) {
+
+    return predicate == null ? this : then("filter", flow.filter(predicate));
+  }
+
+  @Override
+  public <E> ZeroFlow<E> mapNotNull(Function<T, E> function) {
+
+    return then("mapNotNull", flow.mapNotNull(function));
+  }
+
+  @Override
+  public ZeroFlow<T> onEach(Consumer<T> consumer) {
+
+    return then("onEach", flow.onEach(consumer));
+  }
+
+  @Override
+  public <E> ZeroFlow<E> flatMap(Function<T, ZeroFlow<E>> function) {
+
+    return then("flatMap", flow.flatMap(function));
+  }
+
+  @Override
+  public ZeroFlow<T> take(int n) {
+
+    return then("take", flow.take(n));
+  }
+
+  @Override
+  public ZeroFlow<T> takeWhile(Predicate<T> predicate) {
+
+    return then("takeWhile", flow.takeWhile(predicate));
+  }
+
+  private <E> ZeroFlow<E> then(String op, ZeroFlow<E> next) {
+
+    return new InstrumentedZeroFlow<>(pipeline, index + 1, op, next);
+  }
+
+}
@@ -0,0 +1,67 @@
+package com.github.wolray.zero.flow;
+
+import java.util.function.IntConsumer;
+
+/**
+ * int版本的{@link Sink}，与{@link Sink}共享同一套取消状态，可以跨越boxed等转换传递
+ *
+ * @author wolray
+ */
+public abstract class IntSink implements IntConsumer {
+
+  final Sink.Signal signal;
+
+  protected IntSink() {
+
+    this.signal = new Sink.Signal(null);
+  }
+
+  /**
+   * @param downstream
+   *     下游为{@link Sink}或{@link IntSink}时，下游取消也视为本身取消，而本身取消不影响下游
+   */
+  protected IntSink(Object downstream) {
+
+    this.signal = new Sink.Signal(Sink.Signal.of(downstream));
+  }
+
+  IntSink(Sink.Signal signal) {
+
+    this.signal = signal;
+  }
+
+  static IntConsumer relay(Object downstream, IntConsumer upstream) {
+
+    Sink.Signal signal = Sink.Signal.of(downstream);
+    return signal == null ? upstream : new IntSink(signal) {
+
+      @Override
+      protected void next(int t) {
+
+        upstream.accept(t);
+      }
+    };
+  }
+
+  @Override
+  public final void accept(int t) {
+
+    if (signal.isCancelled()) {
+      ZeroFlow.stop();
+    }
+    next(t);
+  }
+
+  protected abstract void next(int t);
+
+  public final boolean cancelled() {
+
+    return signal.poll();
+  }
+
+  public final void cancel() {
+
+    signal.cancel();
+  }
+
+}
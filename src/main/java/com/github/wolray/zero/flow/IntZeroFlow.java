@@ -1,8 +1,12 @@
 package com.github.wolray.zero.flow;
 
 import com.github.wolray.zero.flow.pair.IntPair;
+import com.github.wolray.zero.flow.primitive.IntHashSet;
+import com.github.wolray.zero.flow.primitive.IntIntHashMap;
+import com.github.wolray.zero.flow.primitive.IntObjectHashMap;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.OptionalInt;
 import java.util.function.BiFunction;
 import java.util.function.IntBinaryOperator;
@@ -11,7 +15,9 @@ import java.util.function.IntFunction;
 import java.util.function.IntPredicate;
 import java.util.function.IntSupplier;
 import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
 import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
 
 /**
  * @author wolray
@@ -27,9 +33,10 @@ public interface IntZeroFlow extends BaseZeroFlow<IntConsumer> {
   static IntZeroFlow gen(int seed, IntUnaryOperator operator) {
 
     return c -> {
-      int t = seed;
+      Sink.Signal signal = Sink.Signal.of(c);
+      int         t      = seed;
       c.accept(t);
-      while (true) {
+      while (signal == null || !signal.poll()) {
         c.accept(t = operator.applyAsInt(t));
       }
     };
@@ -38,10 +45,11 @@ public interface IntZeroFlow extends BaseZeroFlow<IntConsumer> {
   static IntZeroFlow gen(int seed1, int seed2, IntBinaryOperator operator) {
 
     return c -> {
-      int t1 = seed1, t2 = seed2;
+      Sink.Signal signal = Sink.Signal.of(c);
+      int         t1     = seed1, t2 = seed2;
       c.accept(t1);
       c.accept(t2);
-      while (true) {
+      while (signal == null || !signal.poll()) {
         c.accept(t2 = operator.applyAsInt(t1, t1 = t2));
       }
     };
@@ -50,7 +58,8 @@ public interface IntZeroFlow extends BaseZeroFlow<IntConsumer> {
   static IntZeroFlow gen(IntSupplier supplier) {
 
     return c -> {
-      while (true) {
+      Sink.Signal signal = Sink.Signal.of(c);
+      while (signal == null || !signal.poll()) {
         c.accept(supplier.getAsInt());
       }
     };
@@ -67,9 +76,22 @@ public interface IntZeroFlow extends BaseZeroFlow<IntConsumer> {
 
   static IntZeroFlow of(int... ts) {
 
-    return c -> {
-      for (int t : ts) {
-        c.accept(t);
+    return new IntZeroFlow() {
+
+      @Override
+      public void consume(IntConsumer consumer) {
+
+        for (int t : ts) {
+          consumer.accept(t);
+        }
+      }
+
+      @Override
+      public void consumeBatches(IntBatchConsumer consumer) {
+
+        if (ts.length > 0) {
+          consumer.accept(ts, 0, ts.length);
+        }
       }
     };
   }
@@ -85,7 +107,12 @@ public interface IntZeroFlow extends BaseZeroFlow<IntConsumer> {
       throw new IllegalArgumentException("step is 0");
     }
     return c -> {
-      if (step > 0) {
+      Sink.Signal signal = Sink.Signal.of(c);
+      if (signal != null) {
+        for (int i = start; (step > 0 ? i < stop : i > stop) && !signal.poll(); i += step) {
+          c.accept(i);
+        }
+      } else if (step > 0) {
         for (int i = start; i < stop; i += step) {
           c.accept(i);
         }
@@ -119,10 +146,15 @@ public interface IntZeroFlow extends BaseZeroFlow<IntConsumer> {
   default OptionalInt find(IntPredicate predicate) {
 
     Mutable<Integer> m = new Mutable<>(null);
-    consumeTillStop(t -> {
-      if (predicate.test(t)) {
-        m.set(t);
-        ZeroFlow.stop();
+    consumeTillStop(new IntSink() {
+
+      @Override
+      protected void next(int t) {
+
+        if (predicate.test(t)) {
+          m.set(t);
+          cancel();
+        }
       }
     });
     return m.isSet ? OptionalInt.of(m.it) : OptionalInt.empty();
@@ -164,6 +196,16 @@ public interface IntZeroFlow extends BaseZeroFlow<IntConsumer> {
     };
   }
 
+  default DoubleZeroFlow asDoubleFlow() {
+
+    return c -> consume(c::accept);
+  }
+
+  default LongZeroFlow asLongFlow() {
+
+    return c -> consume(c::accept);
+  }
+
   default double average() {
 
     return average(null);
@@ -187,13 +229,14 @@ public interface IntZeroFlow extends BaseZeroFlow<IntConsumer> {
 
   default ZeroFlow<Integer> boxed() {
 
-    return c -> consume(c::accept);
+    return c -> consume(IntSink.relay(c, c::accept));
   }
 
   default IntZeroFlow circle() {
 
     return c -> {
-      while (true) {
+      Sink.Signal signal = Sink.Signal.of(c);
+      while (signal == null || !signal.poll()) {
         consume(c);
       }
     };
@@ -230,9 +273,18 @@ public interface IntZeroFlow extends BaseZeroFlow<IntConsumer> {
     })[0];
   }
 
+  default IntIntHashMap countBy(IntUnaryOperator toKey) {
+
+    return reduce(new IntIntHashMap(), (m, t) -> m.addTo(toKey.applyAsInt(t), 1));
+  }
+
   default IntZeroFlow distinct() {
 
-    return distinctBy(i -> i);
+    return c -> reduce(new IntHashSet(), (set, t) -> {
+      if (set.add(t)) {
+        c.accept(t);
+      }
+    });
   }
 
   default <E> IntZeroFlow distinctBy(IntFunction<E> function) {
@@ -344,18 +396,72 @@ public interface IntZeroFlow extends BaseZeroFlow<IntConsumer> {
     consume(t -> consumer.accept(a[0]++, t));
   }
 
+  /**
+   * 按块消费，持有连续数组的源（{@link #of(int...)}、{@link Batched}）直接交出数组，
+   * 其它源先攒满256个元素再交出一块，因此会提前拉取元素，只适合本来就要消费全部元素的终端操作。
+   * 块是借出的只读视图，可能就是源的内部数组，不能修改，回调返回后也不能再持有
+   */
+  default void consumeBatches(IntBatchConsumer consumer) {
+
+    int[] block = new int[256];
+    int[] n     = {0};
+    consume(t -> {
+      block[n[0]++] = t;
+      if (n[0] == block.length) {
+        consumer.accept(block, 0, n[0]);
+        n[0] = 0;
+      }
+    });
+    if (n[0] > 0) {
+      consumer.accept(block, 0, n[0]);
+    }
+  }
+
   default IntZeroFlow filterNot(IntPredicate predicate) {
 
     return filter(predicate.negate());
   }
 
+  /**
+   * 按块消费时，每块先过滤到复用的缓冲中再交给下游
+   */
   default IntZeroFlow filter(IntPredicate predicate) {
 
-    return c -> consume(t -> {
-      if (predicate.test(t)) {
-        c.accept(t);
+    IntZeroFlow source = this;
+    return new IntZeroFlow() {
+
+      @Override
+      public void consume(IntConsumer consumer) {
+
+        source.consume(IntSink.relay(consumer, t -> {
+          if (predicate.test(t)) {
+            consumer.accept(t);
+          }
+        }));
       }
-    });
+
+      @Override
+      public void consumeBatches(IntBatchConsumer consumer) {
+
+        int[][] buffer = {new int[256]};
+        source.consumeBatches((block, offset, length) -> {
+          int[] buf = buffer[0];
+          if (buf.length < length) {
+            buf = buffer[0] = new int[length];
+          }
+          int n = 0;
+          for (int i = offset, end = offset + length; i < end; i++) {
+            int t = block[i];
+            if (predicate.test(t)) {
+              buf[n++] = t;
+            }
+          }
+          if (n > 0) {
+            consumer.accept(buf, 0, n);
+          }
+        });
+      }
+    };
   }
 
   default OptionalInt findNot(IntPredicate predicate) {
@@ -387,6 +493,19 @@ public interface IntZeroFlow extends BaseZeroFlow<IntConsumer> {
     return a[0];
   }
 
+  default IntObjectHashMap<Batched> groupBy(IntUnaryOperator toKey) {
+
+    return groupBy(toKey, Batched::new, Batched::add);
+  }
+
+  default <V> IntObjectHashMap<V> groupBy(IntUnaryOperator toKey, Supplier<V> supplier, ObjIntConsumer<V> accumulator) {
+
+    return reduce(new IntObjectHashMap<>(), (m, t) -> {
+      V v = m.computeIfAbsent(toKey.applyAsInt(t), k -> supplier.get());
+      accumulator.accept(v, t);
+    });
+  }
+
   default OptionalInt lastNot(IntPredicate predicate) {
 
     return last(predicate.negate());
@@ -406,7 +525,7 @@ public interface IntZeroFlow extends BaseZeroFlow<IntConsumer> {
 
   default IntZeroFlow map(IntUnaryOperator function) {
 
-    return c -> consume(t -> c.accept(function.applyAsInt(t)));
+    return c -> consume(IntSink.relay(c, t -> c.accept(function.applyAsInt(t))));
   }
 
   default IntZeroFlow mapIndexed(IndexIntToInt function) {
@@ -414,6 +533,16 @@ public interface IntZeroFlow extends BaseZeroFlow<IntConsumer> {
     return c -> consumeIndexed((i, t) -> c.accept(function.apply(i, t)));
   }
 
+  default DoubleZeroFlow mapToDouble(IntToDoubleFunction function) {
+
+    return c -> consume(t -> c.accept(function.applyAsDouble(t)));
+  }
+
+  default LongZeroFlow mapToLong(IntToLongFunction function) {
+
+    return c -> consume(t -> c.accept(function.applyAsLong(t)));
+  }
+
   default <E> ZeroFlow<E> mapToObj(IntFunction<E> function, int n, IntFunction<E> substitute) {
 
     return n <= 0 ? mapToObj(function) : c -> {
@@ -524,7 +653,15 @@ public interface IntZeroFlow extends BaseZeroFlow<IntConsumer> {
 
   default int sum() {
 
-    return reduce(new int[1], (a, t) -> a[0] += t)[0];
+    int[] a = {0};
+    consumeBatches((block, offset, length) -> {
+      int s = a[0];
+      for (int i = offset, end = offset + length; i < end; i++) {
+        s += block[i];
+      }
+      a[0] = s;
+    });
+    return a[0];
   }
 
   default int sum(IntUnaryOperator function) {
@@ -534,25 +671,33 @@ public interface IntZeroFlow extends BaseZeroFlow<IntConsumer> {
 
   default IntZeroFlow take(int n) {
 
-    return n <= 0 ? empty : c -> {
-      int[] i = {n};
-      consumeTillStop(t -> {
-        if (i[0]-- > 0) {
-          c.accept(t);
-        } else {
-          ZeroFlow.stop();
+    return n <= 0 ? empty : c -> consumeTillStop(new IntSink(c) {
+
+      int i = n;
+
+      @Override
+      protected void next(int t) {
+
+        c.accept(t);
+        if (--i == 0) {
+          cancel();
         }
-      });
-    };
+      }
+    });
   }
 
   default IntZeroFlow takeWhile(IntPredicate predicate) {
 
-    return c -> consumeTillStop(t -> {
-      if (predicate.test(t)) {
-        c.accept(t);
-      } else {
-        ZeroFlow.stop();
+    return c -> consumeTillStop(new IntSink(c) {
+
+      @Override
+      protected void next(int t) {
+
+        if (predicate.test(t)) {
+          c.accept(t);
+        } else {
+          cancel();
+        }
       }
     });
   }
@@ -564,7 +709,22 @@ public interface IntZeroFlow extends BaseZeroFlow<IntConsumer> {
 
   default Batched toBatched() {
 
-    return reduce(new Batched(), Batched::add);
+    Batched batched = new Batched();
+    consumeBatches(batched::addAll);
+    return batched;
+  }
+
+  /**
+   * 收集到堆外的缓冲，用完需要{@link OffHeap#close()}
+   */
+  default OffHeap offHeap() {
+
+    return reduce(new OffHeap(), OffHeap::add);
+  }
+
+  default IntHashSet toSet() {
+
+    return reduce(new IntHashSet(), IntHashSet::add);
   }
 
   interface ObjIntConsumer<E> {
@@ -573,6 +733,27 @@ public interface IntZeroFlow extends BaseZeroFlow<IntConsumer> {
 
   }
 
+  interface ObjIntIntConsumer<E> {
+
+    void accept(E e, int a, int b);
+
+  }
+
+  /**
+   * 块是借出的只读视图，可能是源的内部数组，不能修改，回调返回后可能被复用，不能再持有
+   */
+  interface IntBatchConsumer {
+
+    void accept(int[] block, int offset, int length);
+
+  }
+
+  interface IntIntConsumer {
+
+    void accept(int a, int b);
+
+  }
+
   interface ObjIntToObj<E> {
 
     E apply(E e, int t);
@@ -617,56 +798,146 @@ public interface IntZeroFlow extends BaseZeroFlow<IntConsumer> {
 
   class Batched implements IntZeroFlow {
 
-    private final LinkedList<int[]> list = new LinkedList<>();
+    private final int[][] chunks = new int[Chunks.MAX][];
 
     public int size;
 
-    private int batchSize = 10;
-
-    private int[] cur;
-
-    private int index;
-
     @Override
     public void consume(IntConsumer consumer) {
 
-      list.forEach(a -> {
-        for (int i = 0, size = sizeOf(a); i < size; i++) {
-          consumer.accept(a[i]);
+      for (int k = 0, pos = 0; pos < size; k++) {
+        int[] chunk = chunks[k];
+        int   n     = Math.min(size - pos, chunk.length);
+        for (int i = 0; i < n; i++) {
+          consumer.accept(chunk[i]);
         }
-      });
+        pos += n;
+      }
+    }
+
+    @Override
+    public void consumeBatches(IntBatchConsumer consumer) {
+
+      for (int k = 0, pos = 0; pos < size; k++) {
+        int n = Math.min(size - pos, chunks[k].length);
+        consumer.accept(chunks[k], 0, n);
+        pos += n;
+      }
     }
 
-    private int sizeOf(int[] a) {
+    public int get(int index) {
 
-      return a != cur ? a.length : index;
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+      }
+      int k = Chunks.chunkOf(index);
+      return chunks[k][index - Chunks.startOf(k)];
     }
 
     @Override
     public int[] toArray() {
 
-      int[] a   = new int[size];
-      int   pos = 0;
-      for (int[] sub : list) {
-        System.arraycopy(sub, 0, a, pos, sizeOf(sub));
-        pos += sub.length;
+      int[] a = new int[size];
+      for (int k = 0, pos = 0; pos < size; k++) {
+        int n = Math.min(size - pos, chunks[k].length);
+        System.arraycopy(chunks[k], 0, a, pos, n);
+        pos += n;
       }
       return a;
     }
 
     public void add(int t) {
 
-      if (cur == null) {
-        cur = new int[batchSize];
-        list.add(cur);
-        index = 0;
+      int   k     = Chunks.chunkOf(size);
+      int[] chunk = chunks[k];
+      if (chunk == null) {
+        chunk = chunks[k] = new int[Chunks.capacityOf(k)];
+      }
+      chunk[size - Chunks.startOf(k)] = t;
+      size++;
+    }
+
+    /**
+     * 按行成段复制
+     */
+    public void addAll(int[] a, int offset, int length) {
+
+      for (int end = offset + length; offset < end; ) {
+        int   k     = Chunks.chunkOf(size);
+        int[] chunk = chunks[k];
+        if (chunk == null) {
+          chunk = chunks[k] = new int[Chunks.capacityOf(k)];
+        }
+        int from = size - Chunks.startOf(k);
+        int n    = Math.min(end - offset, chunk.length - from);
+        System.arraycopy(a, offset, chunk, from, n);
+        offset += n;
+        size += n;
+      }
+    }
+
+  }
+
+  /**
+   * 堆外的缓冲，数据不占用堆，用完需要{@link #close()}
+   *
+   * @see OffHeapBuffer
+   */
+  class OffHeap extends OffHeapBuffer implements IntZeroFlow {
+
+    public OffHeap() {
+
+      super(Integer.BYTES);
+    }
+
+    @Override
+    public void consume(IntConsumer consumer) {
+
+      checkOpen();
+      for (int base = 0; base < size; base += mask + 1) {
+        ByteBuffer seg = segment(base);
+        int        n   = Math.min(size - base, mask + 1);
+        for (int i = 0; i < n; i++) {
+          consumer.accept(seg.getInt(i << 2));
+        }
       }
-      cur[index++] = t;
+    }
+
+    public int get(int index) {
+
+      checkIndex(index);
+      return segment(index).getInt((index & mask) << 2);
+    }
+
+    public void set(int index, int t) {
+
+      checkIndex(index);
+      segment(index).putInt((index & mask) << 2, t);
+    }
+
+    public void add(int t) {
+
+      tail().putInt((size & mask) << 2, t);
       size++;
-      if (index == batchSize) {
-        cur       = null;
-        batchSize = Math.min(300, Math.max(batchSize, size >> 1));
+    }
+
+    @Override
+    public int count() {
+
+      checkOpen();
+      return size;
+    }
+
+    @Override
+    public int[] toArray() {
+
+      checkOpen();
+      int[] a = new int[size];
+      for (int base = 0; base < size; base += mask + 1) {
+        ByteBuffer seg = segment(base).duplicate().order(ByteOrder.nativeOrder());
+        seg.asIntBuffer().get(a, base, Math.min(size - base, mask + 1));
       }
+      return a;
     }
 
   }
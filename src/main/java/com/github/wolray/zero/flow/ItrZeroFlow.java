@@ -18,12 +18,26 @@ import java.util.function.Predicate;
 public interface ItrZeroFlow<T> extends Iterable<T>, ZeroFlow<T> {
 
   /**
-   * 消费就是循环
+   * 本身可迭代，不需要{@link ZeroFlow#iterator()}的生产线程
+   */
+  @Override
+  Iterator<T> iterator();
+
+  /**
+   * 消费就是循环，{@link Sink}取消后直接返回
    */
   @Override
   default void consume(Consumer<T> consumer) {
 
-    forEach(consumer);
+    Sink.Signal signal = Sink.Signal.of(consumer);
+    if (signal == null) {
+      forEach(consumer);
+      return;
+    }
+    Iterator<T> iterator = iterator();
+    while (!signal.poll() && iterator.hasNext()) {
+      consumer.accept(iterator.next());
+    }
   }
 
   @Override
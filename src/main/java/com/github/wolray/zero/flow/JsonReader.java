@@ -0,0 +1,450 @@
+package com.github.wolray.zero.flow;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 流式的JSON读取，按路径选出的值逐个输出，其它部分只在词法层面跳过。 <br/> 只有选中的子树会被构造成对象：
+ * 对象为{@link LinkedHashMap}，数组为{@link ArrayList}，整数为{@link Long}，其它数字为{@link Double}，
+ * 因此内存占用取决于最大的一条记录而不是整个文件。跳过的部分不做完整的语法校验
+ *
+ * @author wolray
+ * @see ByteSource#toJsonSeq(String)
+ */
+public final class JsonReader {
+
+  private static final int EOF = -1;
+
+  private final Segment[] path;
+
+  private JsonReader(Segment[] path) {
+
+    this.path = path;
+  }
+
+  /**
+   * 顶层数组的每个元素，等价于{@code of("$[*]")}
+   */
+  public static JsonReader elements() {
+
+    return of("$[*]");
+  }
+
+  /**
+   * 支持{@code $}、{@code .name}、{@code ['name']}、{@code [n]}、{@code [*]}和{@code .*}组成的路径，例如{@code $.items[*]}
+   */
+  public static JsonReader of(String path) {
+
+    if (!path.startsWith("$")) {
+      throw new IllegalArgumentException("path should start with '$': " + path);
+    }
+    List<Segment> segments = new ArrayList<>();
+    int           i        = 1, len = path.length();
+    while (i < len) {
+      char ch = path.charAt(i);
+      if (ch == '.') {
+        int from = ++i;
+        while (i < len && path.charAt(i) != '.' && path.charAt(i) != '[') {
+          i++;
+        }
+        String name = path.substring(from, i);
+        if (name.isEmpty()) {
+          throw new IllegalArgumentException("empty name at " + from + ": " + path);
+        }
+        segments.add(name.equals("*") ? new Segment(true, null, -1) : new Segment(true, name, -1));
+      } else if (ch == '[') {
+        int close = path.indexOf(']', i);
+        if (close < 0) {
+          throw new IllegalArgumentException("unclosed '[' at " + i + ": " + path);
+        }
+        String inner = path.substring(i + 1, close).trim();
+        if (inner.equals("*")) {
+          segments.add(new Segment(false, null, -1));
+        } else if (inner.length() >= 2 && (inner.charAt(0) == '\'' || inner.charAt(0) == '"')) {
+          segments.add(new Segment(true, inner.substring(1, inner.length() - 1), -1));
+        } else {
+          try {
+            segments.add(new Segment(false, null, Integer.parseInt(inner)));
+          } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid index at " + i + ": " + path);
+          }
+        }
+        i = close + 1;
+      } else {
+        throw new IllegalArgumentException("unexpected '" + ch + "' at " + i + ": " + path);
+      }
+    }
+    return new JsonReader(segments.toArray(new Segment[0]));
+  }
+
+  public ZeroFlow<Object> read(ByteSource source) {
+
+    return c -> source.mapClosable(is -> new InputStreamReader(is, source.charset())).use(r -> new Parser(r).parse(c));
+  }
+
+  public ZeroFlow<Object> read(IOChain<Reader> reader) {
+
+    return c -> reader.mapClosable(r -> r).use(r -> new Parser(r).parse(c));
+  }
+
+  /**
+   * 路径中的一段，对象成员的name为null时匹配所有成员，数组下标为-1时匹配所有元素
+   */
+  static final class Segment {
+
+    final boolean field;
+
+    final String name;
+
+    final int index;
+
+    Segment(boolean field, String name, int index) {
+
+      this.field = field;
+      this.name  = name;
+      this.index = index;
+    }
+
+  }
+
+  private final class Parser {
+
+    final Reader reader;
+
+    final char[] buf = new char[8192];
+
+    final StringBuilder text = new StringBuilder();
+
+    final KeyCache keys = new KeyCache(256);
+
+    long offset;
+
+    int pos;
+
+    int limit;
+
+    Parser(Reader reader) {
+
+      this.reader = reader;
+    }
+
+    void parse(Consumer<Object> consumer) throws IOException {
+
+      if (peek() != EOF) {
+        walk(0, consumer);
+      }
+    }
+
+    /**
+     * 当前位置是路径第depth段要匹配的值
+     */
+    void walk(int depth, Consumer<Object> consumer) throws IOException {
+
+      if (depth == path.length) {
+        consumer.accept(readValue());
+        return;
+      }
+      Segment segment = path[depth];
+      int     ch      = peek();
+      if (ch == '{' && segment.field) {
+        pos++;
+        if (peek() == '}') {
+          pos++;
+          return;
+        }
+        do {
+          readString();
+          boolean match = segment.name == null || segment.name.contentEquals(text);
+          expect(':');
+          if (match) {
+            walk(depth + 1, consumer);
+          } else {
+            skipValue();
+          }
+        } while (nextMember('}'));
+      } else if (ch == '[' && !segment.field) {
+        pos++;
+        if (peek() == ']') {
+          pos++;
+          return;
+        }
+        int i = 0;
+        do {
+          if (segment.index < 0 || segment.index == i) {
+            walk(depth + 1, consumer);
+          } else {
+            skipValue();
+          }
+          i++;
+        } while (nextMember(']'));
+      } else {
+        skipValue();
+      }
+    }
+
+    /**
+     * 读完一个成员后，遇到逗号返回true，遇到结束符返回false
+     */
+    boolean nextMember(char close) throws IOException {
+
+      int ch = peek();
+      if (ch != ',' && ch != close) {
+        throw error("expect ',' or '" + close + "'", ch);
+      }
+      pos++;
+      return ch == ',';
+    }
+
+    Object readValue() throws IOException {
+
+      int ch = peek();
+      switch (ch) {
+        case '{': {
+          pos++;
+          Map<String, Object> map = new LinkedHashMap<>();
+          if (peek() == '}') {
+            pos++;
+            return map;
+          }
+          do {
+            readString();
+            String key = keys.get(text);
+            expect(':');
+            map.put(key, readValue());
+          } while (nextMember('}'));
+          return map;
+        }
+        case '[': {
+          pos++;
+          List<Object> list = new ArrayList<>();
+          if (peek() == ']') {
+            pos++;
+            return list;
+          }
+          do {
+            list.add(readValue());
+          } while (nextMember(']'));
+          return list;
+        }
+        case '"':
+          readString();
+          return text.toString();
+        default:
+          readLiteral();
+          return toScalar();
+      }
+    }
+
+    Object toScalar() {
+
+      if ("true".contentEquals(text)) {
+        return Boolean.TRUE;
+      }
+      if ("false".contentEquals(text)) {
+        return Boolean.FALSE;
+      }
+      if ("null".contentEquals(text)) {
+        return null;
+      }
+      try {
+        for (int i = 0; i < text.length(); i++) {
+          char ch = text.charAt(i);
+          if (ch == '.' || ch == 'e' || ch == 'E') {
+            return Parsers.parseDouble(text);
+          }
+        }
+        try {
+          return Parsers.parseLong(text);
+        } catch (NumberFormatException e) {
+          //超出long范围的整数
+          return Parsers.parseDouble(text);
+        }
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("invalid literal '" + text + "' before offset " + (offset + pos));
+      }
+    }
+
+    void skipValue() throws IOException {
+
+      int ch = peek();
+      if (ch == '"') {
+        pos++;
+        skipString();
+      } else if (ch == '{' || ch == '[') {
+        int depth = 0;
+        do {
+          ch = read();
+          if (ch == '"') {
+            skipString();
+          } else if (ch == '{' || ch == '[') {
+            depth++;
+          } else if (ch == '}' || ch == ']') {
+            depth--;
+          } else if (ch == EOF) {
+            throw error("unclosed container", ch);
+          }
+        } while (depth > 0);
+      } else {
+        while ((ch = fill()) != EOF && !isDelimiter(ch)) {
+          pos++;
+        }
+      }
+    }
+
+    /**
+     * 读入一个字符串的内容到text中
+     */
+    void readString() throws IOException {
+
+      if (peek() != '"') {
+        throw error("expect string", peek());
+      }
+      pos++;
+      text.setLength(0);
+      while (true) {
+        int ch = read();
+        if (ch == '"') {
+          return;
+        }
+        if (ch == '\\') {
+          text.append(unescape());
+        } else if (ch == EOF) {
+          throw error("unclosed string", ch);
+        } else {
+          text.append((char) ch);
+        }
+      }
+    }
+
+    /**
+     * 跳过开头引号之后的字符串内容
+     */
+    void skipString() throws IOException {
+
+      while (true) {
+        int ch = read();
+        if (ch == '"') {
+          return;
+        }
+        if (ch == '\\') {
+          read();
+        } else if (ch == EOF) {
+          throw error("unclosed string", ch);
+        }
+      }
+    }
+
+    char unescape() throws IOException {
+
+      int ch = read();
+      switch (ch) {
+        case 'b':
+          return '\b';
+        case 'f':
+          return '\f';
+        case 'n':
+          return '\n';
+        case 'r':
+          return '\r';
+        case 't':
+          return '\t';
+        case 'u': {
+          int code = 0;
+          for (int i = 0; i < 4; i++) {
+            int d = Character.digit(read(), 16);
+            if (d < 0) {
+              throw error("invalid unicode escape", ch);
+            }
+            code = code << 4 | d;
+          }
+          return (char) code;
+        }
+        case '"':
+        case '\\':
+        case '/':
+          return (char) ch;
+        default:
+          throw error("invalid escape", ch);
+      }
+    }
+
+    void readLiteral() throws IOException {
+
+      text.setLength(0);
+      int ch;
+      while ((ch = fill()) != EOF && !isDelimiter(ch)) {
+        text.append((char) ch);
+        pos++;
+      }
+      if (text.length() == 0) {
+        throw error("expect value", ch);
+      }
+    }
+
+    boolean isDelimiter(int ch) {
+
+      return ch == ',' || ch == '}' || ch == ']' || ch == ':' || ch <= ' ';
+    }
+
+    void expect(char expected) throws IOException {
+
+      int ch = peek();
+      if (ch != expected) {
+        throw error("expect '" + expected + "'", ch);
+      }
+      pos++;
+    }
+
+    /**
+     * 跳过空白，返回下一个字符但不消费
+     */
+    int peek() throws IOException {
+
+      int ch;
+      while ((ch = fill()) != EOF && ch <= ' ') {
+        pos++;
+      }
+      return ch;
+    }
+
+    int read() throws IOException {
+
+      int ch = fill();
+      if (ch != EOF) {
+        pos++;
+      }
+      return ch;
+    }
+
+    int fill() throws IOException {
+
+      if (pos == limit) {
+        int n;
+        do {
+          n = reader.read(buf, 0, buf.length);
+        } while (n == 0);
+        if (n < 0) {
+          return EOF;
+        }
+        offset += limit;
+        pos   = 0;
+        limit = n;
+      }
+      return buf[pos];
+    }
+
+    IllegalArgumentException error(String message, int ch) {
+
+      String found = ch == EOF ? "end of input" : "'" + (char) ch + "'";
+      return new IllegalArgumentException(message + ", found " + found + " at offset " + (offset + pos));
+    }
+
+  }
+
+}
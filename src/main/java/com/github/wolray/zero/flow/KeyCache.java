@@ -0,0 +1,72 @@
+package com.github.wolray.zero.flow;
+
+/**
+ * 定长的字符串驻留表，按区间内容的哈希直接映射到槽位，命中时不创建新的字符串，冲突时后来者覆盖。 <br/>
+ * 适合取值来自少量固定词汇的键。槽位里只存不可变的字符串，可以在多个线程间共享，竞争时最多多创建几个字符串
+ *
+ * @author wolray
+ * @see com.github.wolray.zero.flow.pair.PairZeroFlow#parseMap(CharSequence, char, char, KeyCache)
+ */
+public final class KeyCache {
+
+  private final String[] table;
+
+  private final int mask;
+
+  /**
+   * @param capacity
+   *     槽位数，向上取整为2的幂，一般取词汇量的4倍以上以减少冲突
+   */
+  public KeyCache(int capacity) {
+
+    if (capacity <= 0 || capacity > 1 << 30) {
+      throw new IllegalArgumentException("capacity out of range: " + capacity);
+    }
+    int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    this.table = new String[size];
+    this.mask  = size - 1;
+  }
+
+  public String get(CharSequence s) {
+
+    return get(s, 0, s.length());
+  }
+
+  /**
+   * 返回与[start, end)内容相同的字符串，已缓存时直接返回缓存的实例
+   */
+  public String get(CharSequence s, int start, int end) {
+
+    //与String.hashCode一致，命中时可以直接比较缓存字符串自带的哈希
+    int h = 0;
+    for (int i = start; i < end; i++) {
+      h = 31 * h + s.charAt(i);
+    }
+    int    index  = (h ^ h >>> 16) & mask;
+    String cached = table[index];
+    if (cached != null && cached.hashCode() == h && contentEquals(cached, s, start, end)) {
+      return cached;
+    }
+    String key = s.subSequence(start, end).toString();
+    table[index] = key;
+    return key;
+  }
+
+  private static boolean contentEquals(String cached, CharSequence s, int start, int end) {
+
+    int len = end - start;
+    if (cached.length() != len) {
+      return false;
+    }
+    if (s instanceof String) {
+      return ((String) s).regionMatches(start, cached, 0, len);
+    }
+    for (int i = 0; i < len; i++) {
+      if (cached.charAt(i) != s.charAt(start + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
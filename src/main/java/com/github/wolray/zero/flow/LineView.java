@@ -0,0 +1,196 @@
+package com.github.wolray.zero.flow;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * 可复用的行视图，指向内部字符缓冲中的一段，每读到一行只移动下标而不创建{@link String}。 <br/>
+ * 视图在下一行到来时就会被覆盖，需要保留的行必须显式{@link #toString()}复制
+ *
+ * @author wolray
+ * @see ByteSource#toLineViews()
+ */
+public final class LineView implements CharSequence {
+
+  private char[] chars;
+
+  private int from;
+
+  private int length;
+
+  LineView(char[] chars) {
+
+    this.chars = chars;
+  }
+
+  /**
+   * 从reader中逐行读取，换行规则与{@link java.io.BufferedReader#readLine()}一致，每行都复用同一个视图
+   */
+  static void read(Reader reader, int bufferSize, Consumer<LineView> consumer) throws IOException {
+
+    if (bufferSize <= 0) {
+      throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+    }
+    char[]   buf    = new char[bufferSize];
+    LineView view   = new LineView(buf);
+    int      start  = 0, end = 0, n;
+    boolean  skipLf = false;
+    while ((n = reader.read(buf, end, buf.length - end)) >= 0) {
+      if (n == 0) {
+        continue;
+      }
+      int i = end;
+      end += n;
+      if (skipLf && buf[i] == '\n') {
+        start = ++i;
+      }
+      start  = view.scan(start, i, end, consumer);
+      skipLf = start == end && buf[end - 1] == '\r';
+      if (start > 0) {
+        //未结束的行移到缓冲开头
+        System.arraycopy(buf, start, buf, 0, end - start);
+        end -= start;
+        start = 0;
+      } else if (end == buf.length) {
+        buf = view.chars = Arrays.copyOf(buf, buf.length << 1);
+      }
+    }
+    if (start < end) {
+      view.from   = start;
+      view.length = end - start;
+      consumer.accept(view);
+    }
+  }
+
+  /**
+   * 对每次读入的缓冲单独扫描，避免整个读取循环只能靠OSR编译
+   *
+   * @return 未结束的行的开头
+   */
+  private int scan(int start, int i, int end, Consumer<LineView> consumer) {
+
+    char[] buf = chars;
+    while (i < end) {
+      int  j  = i;
+      char ch = 0;
+      for (; j < end; j++) {
+        ch = buf[j];
+        if (ch <= '\r' && (ch == '\n' || ch == '\r')) {
+          break;
+        }
+      }
+      if (j == end) {
+        break;
+      }
+      from   = start;
+      length = j - start;
+      consumer.accept(this);
+      i = start = j + 1;
+      if (ch == '\r' && i < end && buf[i] == '\n') {
+        i = start = i + 1;
+      }
+    }
+    return start;
+  }
+
+  @Override
+  public int length() {
+
+    return length;
+  }
+
+  @Override
+  public char charAt(int index) {
+
+    if (index < 0 || index >= length) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + length);
+    }
+    return chars[from + index];
+  }
+
+  /**
+   * 返回复制出的字符串
+   */
+  @Override
+  public CharSequence subSequence(int start, int end) {
+
+    if (start < 0 || end > length || start > end) {
+      throw new IndexOutOfBoundsException("Range: [" + start + ", " + end + "), Length: " + length);
+    }
+    return new String(chars, from + start, end - start);
+  }
+
+  public int indexOf(char c) {
+
+    return indexOf(c, 0);
+  }
+
+  public int indexOf(char c, int fromIndex) {
+
+    char[] a = chars;
+    for (int i = from + Math.max(fromIndex, 0), end = from + length; i < end; i++) {
+      if (a[i] == c) {
+        return i - from;
+      }
+    }
+    return -1;
+  }
+
+  public int indexOf(CharSequence s) {
+
+    int n = s.length();
+    if (n == 0) {
+      return 0;
+    }
+    char[] a     = chars;
+    char   first = s.charAt(0);
+    for (int i = from, max = from + length - n; i <= max; i++) {
+      if (a[i] == first && regionMatches(i - from, s)) {
+        return i - from;
+      }
+    }
+    return -1;
+  }
+
+  public boolean contains(CharSequence s) {
+
+    return indexOf(s) >= 0;
+  }
+
+  public boolean startsWith(CharSequence s) {
+
+    return s.length() <= length && regionMatches(0, s);
+  }
+
+  public boolean endsWith(CharSequence s) {
+
+    return s.length() <= length && regionMatches(length - s.length(), s);
+  }
+
+  public boolean contentEquals(CharSequence s) {
+
+    return s.length() == length && regionMatches(0, s);
+  }
+
+  private boolean regionMatches(int offset, CharSequence s) {
+
+    for (int i = 0, n = s.length(); i < n; i++) {
+      if (chars[from + offset + i] != s.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * 复制当前行
+   */
+  @Override
+  public String toString() {
+
+    return new String(chars, from, length);
+  }
+
+}
@@ -1,8 +1,13 @@
 package com.github.wolray.zero.flow;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 /**
  * 快速将{@link List}转成流处理
@@ -13,7 +18,49 @@ public interface ListZeroFlow<T> extends SizedZeroFlow<T>, List<T> {
 
   static <T> ListZeroFlow<T> of(List<T> list) {
 
-    return list instanceof ListZeroFlow ? (ListZeroFlow<T>) list : new Proxy<>(list);
+    if (list instanceof ListZeroFlow) {
+      return (ListZeroFlow<T>) list;
+    }
+    return list instanceof RandomAccess ? new RandomAccessProxy<>(list) : new Proxy<>(list);
+  }
+
+  @Override
+  default ZeroFlow<T> parallel(Async async, int leafSize) {
+
+    if (!(this instanceof RandomAccess)) {
+      return SizedZeroFlow.super.parallel(async, leafSize);
+    }
+    return c -> async.joinRange(size(), leafSize > 0 ? leafSize : Async.batchSize(size()), (from, to) -> {
+      for (int i = from; i < to; i++) {
+        c.accept(get(i));
+      }
+    });
+  }
+
+  /**
+   * 按下标区间切分归约，各区间的中间结果按原顺序两两并行合并
+   */
+  @Override
+  default <E> E parallelReduce(Async async, Reducer<T, E> reducer) {
+
+    if (!(this instanceof RandomAccess)) {
+      return toList().parallelReduce(async, reducer);
+    }
+    if (reducer.combiner() == null) {
+      throw new IllegalArgumentException("reducer without combiner");
+    }
+    Supplier<E>                       supplier    = reducer.supplier();
+    BiConsumer<E, T>                  accumulator = reducer.accumulator();
+    ConcurrentSkipListMap<Integer, E> partials    = new ConcurrentSkipListMap<>();
+    int                               size        = size();
+    async.joinRange(size, Async.batchSize(size), (from, to) -> {
+      E e = supplier.get();
+      for (int i = from; i < to; i++) {
+        accumulator.accept(e, get(i));
+      }
+      partials.put(from, e);
+    });
+    return ReducerUtil.combineTree(async, reducer, new ArrayList<>(partials.values()));
   }
 
   class Proxy<T> extends CollectionZeroFlow.Proxy<T, List<T>> implements ListZeroFlow<T> {
@@ -85,4 +132,13 @@ public interface ListZeroFlow<T> extends SizedZeroFlow<T>, List<T> {
 
   }
 
+  class RandomAccessProxy<T> extends Proxy<T> implements RandomAccess {
+
+    public RandomAccessProxy(List<T> backer) {
+
+      super(backer);
+    }
+
+  }
+
 }
@@ -0,0 +1,761 @@
+package com.github.wolray.zero.flow;
+
+import com.github.wolray.zero.flow.pair.LongPair;
+import com.github.wolray.zero.flow.primitive.LongHashSet;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashSet;
+import java.util.OptionalLong;
+import java.util.function.BiFunction;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongSupplier;
+import java.util.function.LongToDoubleFunction;
+import java.util.function.LongToIntFunction;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * @author wolray
+ */
+public interface LongZeroFlow extends BaseZeroFlow<LongConsumer> {
+
+  LongZeroFlow empty = c -> {
+  };
+
+  LongConsumer nothing = t -> {
+  };
+
+  static LongZeroFlow gen(long seed, LongUnaryOperator operator) {
+
+    return c -> {
+      long t = seed;
+      c.accept(t);
+      while (true) {
+        c.accept(t = operator.applyAsLong(t));
+      }
+    };
+  }
+
+  static LongZeroFlow gen(long seed1, long seed2, LongBinaryOperator operator) {
+
+    return c -> {
+      long t1 = seed1, t2 = seed2;
+      c.accept(t1);
+      c.accept(t2);
+      while (true) {
+        c.accept(t2 = operator.applyAsLong(t1, t1 = t2));
+      }
+    };
+  }
+
+  static LongZeroFlow gen(LongSupplier supplier) {
+
+    return c -> {
+      while (true) {
+        c.accept(supplier.getAsLong());
+      }
+    };
+  }
+
+  static LongZeroFlow of(long... ts) {
+
+    return c -> {
+      for (long t : ts) {
+        c.accept(t);
+      }
+    };
+  }
+
+  static LongZeroFlow range(long start, long stop) {
+
+    return range(start, stop, 1);
+  }
+
+  static LongZeroFlow range(long start, long stop, long step) {
+
+    if (step == 0) {
+      throw new IllegalArgumentException("step is 0");
+    }
+    return c -> {
+      if (step > 0) {
+        for (long i = start; i < stop; i += step) {
+          c.accept(i);
+        }
+      } else {
+        for (long i = start; i > stop; i += step) {
+          c.accept(i);
+        }
+      }
+    };
+  }
+
+  static LongZeroFlow range(long stop) {
+
+    return range(0, stop, 1);
+  }
+
+  static LongZeroFlow repeat(int n, long value) {
+
+    return c -> {
+      for (int i = 0; i < n; i++) {
+        c.accept(value);
+      }
+    };
+  }
+
+  default boolean all(LongPredicate predicate) {
+
+    return !find(predicate.negate()).isPresent();
+  }
+
+  default OptionalLong find(LongPredicate predicate) {
+
+    Mutable<Long> m = new Mutable<>(null);
+    consumeTillStop(t -> {
+      if (predicate.test(t)) {
+        m.set(t);
+        ZeroFlow.stop();
+      }
+    });
+    return m.isSet ? OptionalLong.of(m.it) : OptionalLong.empty();
+  }
+
+  default boolean anyNot(LongPredicate predicate) {
+
+    return any(predicate.negate());
+  }
+
+  default boolean any(LongPredicate predicate) {
+
+    return find(predicate).isPresent();
+  }
+
+  default LongZeroFlow append(long t) {
+
+    return c -> {
+      consume(c);
+      c.accept(t);
+    };
+  }
+
+  default LongZeroFlow append(long... t) {
+
+    return c -> {
+      consume(c);
+      for (long x : t) {
+        c.accept(x);
+      }
+    };
+  }
+
+  default LongZeroFlow appendWith(LongZeroFlow seq) {
+
+    return c -> {
+      consume(c);
+      seq.consume(c);
+    };
+  }
+
+  default DoubleZeroFlow asDoubleFlow() {
+
+    return c -> consume(c::accept);
+  }
+
+  default double average() {
+
+    return average(null);
+  }
+
+  default double average(LongToDoubleFunction weightFunction) {
+
+    double[] a = {0, 0};
+    consume(t -> {
+      if (weightFunction != null) {
+        double w = weightFunction.applyAsDouble(t);
+        a[0] += t * w;
+        a[1] += w;
+      } else {
+        a[0] += t;
+        a[1] += 1;
+      }
+    });
+    return a[1] != 0 ? a[0] / a[1] : 0;
+  }
+
+  default ZeroFlow<Long> boxed() {
+
+    return c -> consume(c::accept);
+  }
+
+  default LongZeroFlow circle() {
+
+    return c -> {
+      while (true) {
+        consume(c);
+      }
+    };
+  }
+
+  default void consumeIndexedTillStop(IndexLongConsumer consumer) {
+
+    int[] a = {0};
+    consumeTillStop(t -> consumer.accept(a[0]++, t));
+  }
+
+  default int count() {
+
+    return reduce(new int[1], (a, t) -> a[0]++)[0];
+  }
+
+  default <E> E reduce(E des, ObjLongConsumer<E> consumer) {
+
+    consume(t -> consumer.accept(des, t));
+    return des;
+  }
+
+  default int countNot(LongPredicate predicate) {
+
+    return count(predicate.negate());
+  }
+
+  default int count(LongPredicate predicate) {
+
+    return reduce(new int[1], (a, t) -> {
+      if (predicate.test(t)) {
+        a[0]++;
+      }
+    })[0];
+  }
+
+  default LongZeroFlow distinct() {
+
+    return c -> reduce(new LongHashSet(), (set, t) -> {
+      if (set.add(t)) {
+        c.accept(t);
+      }
+    });
+  }
+
+  default <E> LongZeroFlow distinctBy(LongFunction<E> function) {
+
+    return c -> reduce(new HashSet<>(), (set, t) -> {
+      if (set.add(function.apply(t))) {
+        c.accept(t);
+      }
+    });
+  }
+
+  default LongZeroFlow drop(int n) {
+
+    return n <= 0 ? this : partial(n, nothing);
+  }
+
+  default LongZeroFlow partial(int n, LongConsumer substitute) {
+
+    return c -> consume(c, n, substitute);
+  }
+
+  default void consume(LongConsumer consumer, int n, LongConsumer substitute) {
+
+    if (n > 0) {
+      int[] a = {n - 1};
+      consume(t -> {
+        if (a[0] < 0) {
+          consumer.accept(t);
+        } else {
+          a[0]--;
+          substitute.accept(t);
+        }
+      });
+    } else {
+      consume(consumer);
+    }
+  }
+
+  default LongZeroFlow dropWhile(LongPredicate predicate) {
+
+    return c -> foldBoolean(false, (b, t) -> {
+      if (b || !predicate.test(t)) {
+        c.accept(t);
+        return true;
+      }
+      return false;
+    });
+  }
+
+  default boolean foldBoolean(boolean init, BoolLongToBool function) {
+
+    boolean[] a = {init};
+    consume(i -> a[0] = function.apply(a[0], i));
+    return a[0];
+  }
+
+  default LongZeroFlow duplicateAll(int times) {
+
+    return c -> {
+      for (int i = 0; i < times; i++) {
+        consume(c);
+      }
+    };
+  }
+
+  default LongZeroFlow duplicateEach(int times) {
+
+    return c -> consume(t -> {
+      for (int i = 0; i < times; i++) {
+        c.accept(t);
+      }
+    });
+  }
+
+  default LongZeroFlow duplicateIf(int times, LongPredicate predicate) {
+
+    return c -> consume(t -> {
+      if (predicate.test(t)) {
+        for (int i = 0; i < times; i++) {
+          c.accept(t);
+        }
+      } else {
+        c.accept(t);
+      }
+    });
+  }
+
+  default LongZeroFlow filter(int n, LongPredicate predicate) {
+
+    return c -> consume(c, n, t -> {
+      if (predicate.test(t)) {
+        c.accept(t);
+      }
+    });
+  }
+
+  default LongZeroFlow filterIndexed(IndexLongPredicate predicate) {
+
+    return c -> consumeIndexed((i, t) -> {
+      if (predicate.test(i, t)) {
+        c.accept(t);
+      }
+    });
+  }
+
+  default void consumeIndexed(IndexLongConsumer consumer) {
+
+    int[] a = {0};
+    consume(t -> consumer.accept(a[0]++, t));
+  }
+
+  default LongZeroFlow filterNot(LongPredicate predicate) {
+
+    return filter(predicate.negate());
+  }
+
+  default LongZeroFlow filter(LongPredicate predicate) {
+
+    return c -> consume(t -> {
+      if (predicate.test(t)) {
+        c.accept(t);
+      }
+    });
+  }
+
+  default OptionalLong findNot(LongPredicate predicate) {
+
+    return find(predicate.negate());
+  }
+
+  default OptionalLong first() {
+
+    return find(t -> true);
+  }
+
+  default LongZeroFlow flatMap(LongFunction<LongZeroFlow> function) {
+
+    return c -> consume(t -> function.apply(t).consume(c));
+  }
+
+  default double foldDouble(double init, DoubleLongToDouble function) {
+
+    double[] a = {init};
+    consume(i -> a[0] = function.apply(a[0], i));
+    return a[0];
+  }
+
+  default int foldInt(int init, IntLongToInt function) {
+
+    int[] a = {init};
+    consume(i -> a[0] = function.apply(a[0], i));
+    return a[0];
+  }
+
+  default OptionalLong lastNot(LongPredicate predicate) {
+
+    return last(predicate.negate());
+  }
+
+  default OptionalLong last(LongPredicate predicate) {
+
+    return filter(predicate).last();
+  }
+
+  default OptionalLong last() {
+
+    Mutable<Long> m = new Mutable<>(null);
+    consume(m::set);
+    return m.isSet ? OptionalLong.of(m.it) : OptionalLong.empty();
+  }
+
+  default LongZeroFlow map(LongUnaryOperator function) {
+
+    return c -> consume(t -> c.accept(function.applyAsLong(t)));
+  }
+
+  default LongZeroFlow mapIndexed(IndexLongToLong function) {
+
+    return c -> consumeIndexed((i, t) -> c.accept(function.apply(i, t)));
+  }
+
+  default DoubleZeroFlow mapToDouble(LongToDoubleFunction function) {
+
+    return c -> consume(t -> c.accept(function.applyAsDouble(t)));
+  }
+
+  default IntZeroFlow mapToInt(LongToIntFunction function) {
+
+    return c -> consume(t -> c.accept(function.applyAsInt(t)));
+  }
+
+  default <E> ZeroFlow<E> mapToObj(LongFunction<E> function, int n, LongFunction<E> substitute) {
+
+    return n <= 0 ? mapToObj(function) : c -> {
+      int[] a = {n - 1};
+      consume(t -> {
+        if (a[0] < 0) {
+          c.accept(function.apply(t));
+        } else {
+          a[0]--;
+          c.accept(substitute.apply(t));
+        }
+      });
+    };
+  }
+
+  default <E> ZeroFlow<E> mapToObj(LongFunction<E> function) {
+
+    return c -> consume(t -> c.accept(function.apply(t)));
+  }
+
+  default Long max() {
+
+    return fold(null, (f, t) -> f == null || f < t ? t : f);
+  }
+
+  default <E> E fold(E init, ObjLongToObj<E> function) {
+
+    Mutable<E> m = new Mutable<>(init);
+    consume(t -> m.it = function.apply(m.it, t));
+    return m.it;
+  }
+
+  default <V extends Comparable<V>> LongPair<V> max(LongFunction<V> function) {
+
+    return reduce(new LongPair<>(0, null), (p, t) -> {
+      V v = function.apply(t);
+      if (p.second == null || p.second.compareTo(v) < 0) {
+        p.first  = t;
+        p.second = v;
+      }
+    });
+  }
+
+  default Long min() {
+
+    return fold(null, (f, t) -> f == null || f > t ? t : f);
+  }
+
+  default <V extends Comparable<V>> LongPair<V> min(LongFunction<V> function) {
+
+    return reduce(new LongPair<>(0, null), (p, t) -> {
+      V v = function.apply(t);
+      if (p.second == null || p.second.compareTo(v) > 0) {
+        p.first  = t;
+        p.second = v;
+      }
+    });
+  }
+
+  default boolean none(LongPredicate predicate) {
+
+    return !find(predicate).isPresent();
+  }
+
+  default LongZeroFlow onEach(int n, LongConsumer consumer) {
+
+    return c -> consume(c, n, consumer.andThen(c));
+  }
+
+  default LongZeroFlow onEach(LongConsumer consumer) {
+
+    return c -> consume(consumer.andThen(c));
+  }
+
+  default LongZeroFlow onEachIndexed(IndexLongConsumer consumer) {
+
+    return c -> consumeIndexed((i, t) -> {
+      consumer.accept(i, t);
+      c.accept(t);
+    });
+  }
+
+  default LongZeroFlow replace(int n, LongUnaryOperator operator) {
+
+    return c -> consume(c, n, t -> c.accept(operator.applyAsLong(t)));
+  }
+
+  /**
+   * @return {@link LongZeroFlow }
+   *
+   * @see ItrZeroFlow#fold(Object, BiFunction)
+   */
+  default LongZeroFlow runningFold(long init, LongBinaryOperator function) {
+
+    return c -> foldLong(init, (acc, t) -> {
+      acc = function.applyAsLong(acc, t);
+      c.accept(acc);
+      return acc;
+    });
+  }
+
+  default long foldLong(long init, LongBinaryOperator function) {
+
+    long[] a = {init};
+    consume(i -> a[0] = function.applyAsLong(a[0], i));
+    return a[0];
+  }
+
+  default long sum() {
+
+    return reduce(new long[1], (a, t) -> a[0] += t)[0];
+  }
+
+  default long sum(LongUnaryOperator function) {
+
+    return reduce(new long[1], (a, t) -> a[0] += function.applyAsLong(t))[0];
+  }
+
+  default LongZeroFlow take(int n) {
+
+    return n <= 0 ? empty : c -> {
+      int[] i = {n};
+      consumeTillStop(t -> {
+        if (i[0]-- > 0) {
+          c.accept(t);
+        } else {
+          ZeroFlow.stop();
+        }
+      });
+    };
+  }
+
+  default LongZeroFlow takeWhile(LongPredicate predicate) {
+
+    return c -> consumeTillStop(t -> {
+      if (predicate.test(t)) {
+        c.accept(t);
+      } else {
+        ZeroFlow.stop();
+      }
+    });
+  }
+
+  default long[] toArray() {
+
+    return toBatched().toArray();
+  }
+
+  default Batched toBatched() {
+
+    return reduce(new Batched(), Batched::add);
+  }
+
+  /**
+   * 收集到堆外的缓冲，用完需要{@link OffHeap#close()}
+   */
+  default OffHeap offHeap() {
+
+    return reduce(new OffHeap(), OffHeap::add);
+  }
+
+  default LongHashSet toSet() {
+
+    return reduce(new LongHashSet(), LongHashSet::add);
+  }
+
+  interface ObjLongConsumer<E> {
+
+    void accept(E e, long t);
+
+  }
+
+  interface ObjLongToObj<E> {
+
+    E apply(E e, long t);
+
+  }
+
+  interface DoubleLongToDouble {
+
+    double apply(double acc, long t);
+
+  }
+
+  interface IntLongToInt {
+
+    int apply(int acc, long t);
+
+  }
+
+  interface BoolLongToBool {
+
+    boolean apply(boolean acc, long t);
+
+  }
+
+  interface IndexLongConsumer {
+
+    void accept(int i, long t);
+
+  }
+
+  interface IndexLongPredicate {
+
+    boolean test(int i, long t);
+
+  }
+
+  interface IndexLongToLong {
+
+    long apply(int i, long t);
+
+  }
+
+  class Batched implements LongZeroFlow {
+
+    private final long[][] chunks = new long[Chunks.MAX][];
+
+    public int size;
+
+    @Override
+    public void consume(LongConsumer consumer) {
+
+      for (int k = 0, pos = 0; pos < size; k++) {
+        long[] chunk = chunks[k];
+        int    n     = Math.min(size - pos, chunk.length);
+        for (int i = 0; i < n; i++) {
+          consumer.accept(chunk[i]);
+        }
+        pos += n;
+      }
+    }
+
+    public long get(int index) {
+
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+      }
+      int k = Chunks.chunkOf(index);
+      return chunks[k][index - Chunks.startOf(k)];
+    }
+
+    @Override
+    public long[] toArray() {
+
+      long[] a = new long[size];
+      for (int k = 0, pos = 0; pos < size; k++) {
+        int n = Math.min(size - pos, chunks[k].length);
+        System.arraycopy(chunks[k], 0, a, pos, n);
+        pos += n;
+      }
+      return a;
+    }
+
+    public void add(long t) {
+
+      int    k     = Chunks.chunkOf(size);
+      long[] chunk = chunks[k];
+      if (chunk == null) {
+        chunk = chunks[k] = new long[Chunks.capacityOf(k)];
+      }
+      chunk[size - Chunks.startOf(k)] = t;
+      size++;
+    }
+
+  }
+
+  /**
+   * 堆外的缓冲，数据不占用堆，用完需要{@link #close()}
+   *
+   * @see OffHeapBuffer
+   */
+  class OffHeap extends OffHeapBuffer implements LongZeroFlow {
+
+    public OffHeap() {
+
+      super(Long.BYTES);
+    }
+
+    @Override
+    public void consume(LongConsumer consumer) {
+
+      checkOpen();
+      for (int base = 0; base < size; base += mask + 1) {
+        ByteBuffer seg = segment(base);
+        int        n   = Math.min(size - base, mask + 1);
+        for (int i = 0; i < n; i++) {
+          consumer.accept(seg.getLong(i << 3));
+        }
+      }
+    }
+
+    public long get(int index) {
+
+      checkIndex(index);
+      return segment(index).getLong((index & mask) << 3);
+    }
+
+    public void set(int index, long t) {
+
+      checkIndex(index);
+      segment(index).putLong((index & mask) << 3, t);
+    }
+
+    public void add(long t) {
+
+      tail().putLong((size & mask) << 3, t);
+      size++;
+    }
+
+    @Override
+    public int count() {
+
+      checkOpen();
+      return size;
+    }
+
+    @Override
+    public long[] toArray() {
+
+      checkOpen();
+      long[] a = new long[size];
+      for (int base = 0; base < size; base += mask + 1) {
+        ByteBuffer seg = segment(base).duplicate().order(ByteOrder.nativeOrder());
+        seg.asLongBuffer().get(a, base, Math.min(size - base, mask + 1));
+      }
+      return a;
+    }
+
+  }
+
+}
@@ -0,0 +1,559 @@
+package com.github.wolray.zero.flow;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 内存映射的文件，按2的幂大小分段映射，可以处理超过2G的文件。 <br/> 按行遍历、切片和字节查找都直接在映射的内存上进行，原始字节不会复制到堆中，
+ * 可以扫描比内存还大的文件。切片与原文件共享映射，原文件{@link #close()}后所有切片都不能再访问。
+ * 每次读取期间持有映射的引用计数，关闭时仍有读取的话由最后一个读取解除映射。 <br/>
+ * 按字节切行要求字符集与ASCII兼容，即换行符编码为单字节的\n、\r（如UTF-8、GBK、ISO-8859-1），
+ * UTF-16等其它字符集的{@link #toSeq()}和{@link #parallelLines}退化为经过{@link java.io.Reader}的单线程解码
+ *
+ * @author wolray
+ * @see ByteSource#mapped(Path)
+ */
+public class MappedByteSource implements ByteSource, AutoCloseable {
+
+  /**
+   * 默认每段映射1G
+   */
+  static final int SEGMENT_SHIFT = 30;
+
+  /**
+   * 有序并行时每个区间的最大字节数，限制等待输出的行占用的内存
+   */
+  static final long ORDERED_RANGE = 1 << 22;
+
+  private final Mapping mapping;
+
+  private final long offset;
+
+  private final long size;
+
+  private final Charset charset;
+
+  /**
+   * 能否直接按\n、\r字节切行
+   */
+  private final boolean byteLines;
+
+  private MappedByteSource(Mapping mapping, long offset, long size, Charset charset) {
+
+    this(mapping, offset, size, charset, isAsciiCompatible(charset));
+  }
+
+  private MappedByteSource(Mapping mapping, long offset, long size, Charset charset, boolean byteLines) {
+
+    this.mapping   = mapping;
+    this.offset    = offset;
+    this.size      = size;
+    this.charset   = charset;
+    this.byteLines = byteLines;
+  }
+
+  /**
+   * 换行符是否编码为单字节的\n、\r
+   */
+  static boolean isAsciiCompatible(Charset charset) {
+
+    return charset.canEncode() && Arrays.equals("\n\r".getBytes(charset), new byte[]{'\n', '\r'});
+  }
+
+  static MappedByteSource map(Path path, int segmentShift) {
+
+    return IOChain.apply(path, p -> {
+      try (FileChannel channel = FileChannel.open(p, StandardOpenOption.READ)) {
+        long               size     = channel.size();
+        long               segment  = 1L << segmentShift;
+        MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + segment - 1) >>> segmentShift)];
+        for (int i = 0; i < segments.length; i++) {
+          long pos = i * segment;
+          segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(segment, size - pos));
+        }
+        return new MappedByteSource(new Mapping(segments, segmentShift), 0, size, Charset.defaultCharset());
+      }
+    });
+  }
+
+  public long size() {
+
+    return size;
+  }
+
+  public byte get(long pos) {
+
+    checkRange(pos, pos + 1);
+    long abs = offset + pos;
+    mapping.acquire();
+    try {
+      return mapping.segment(abs).get(mapping.indexOf(abs));
+    } finally {
+      mapping.release();
+    }
+  }
+
+  /**
+   * 共享映射的区间视图，不复制数据
+   */
+  public MappedByteSource slice(long from, long to) {
+
+    checkRange(from, to);
+    return new MappedByteSource(mapping, offset + from, to - from, charset, byteLines);
+  }
+
+  /**
+   * 从from开始查找字节b
+   *
+   * @return 相对于本视图的位置，找不到时返回-1
+   */
+  public long indexOf(byte b, long from) {
+
+    mapping.acquire();
+    try {
+      return scan(b, from);
+    } finally {
+      mapping.release();
+    }
+  }
+
+  private long scan(byte b, long from) {
+
+    for (long pos = Math.max(0, from); pos < size; ) {
+      long       abs = offset + pos;
+      ByteBuffer seg = mapping.segment(abs);
+      int        j   = mapping.indexOf(abs);
+      int        n   = (int) Math.min(seg.limit() - j, size - pos);
+      for (int k = 0; k < n; k++) {
+        if (seg.get(j + k) == b) {
+          return pos + k;
+        }
+      }
+      pos += n;
+    }
+    return -1;
+  }
+
+  /**
+   * 按行遍历，得到每一行不含换行符的[from, to)区间。与{@link java.io.BufferedReader#readLine()}一致，
+   * \n、\r和\r\n都视为换行，末尾没有换行符的最后一行也会输出
+   */
+  public void consumeLines(RangeConsumer consumer) {
+
+    mapping.acquire();
+    try {
+      lines(consumer);
+    } finally {
+      mapping.release();
+    }
+  }
+
+  private void lines(RangeConsumer consumer) {
+
+    long    lineStart = 0;
+    boolean skipLf    = false;
+    for (long pos = 0; pos < size; ) {
+      long       abs = offset + pos;
+      ByteBuffer seg = mapping.segment(abs);
+      int        j   = mapping.indexOf(abs);
+      int        n   = (int) Math.min(seg.limit() - j, size - pos);
+      for (int k = 0; k < n; k++) {
+        byte b = seg.get(j + k);
+        if (b == '\n') {
+          if (!skipLf) {
+            consumer.accept(lineStart, pos + k);
+          }
+          lineStart = pos + k + 1;
+          skipLf    = false;
+        } else if (b == '\r') {
+          consumer.accept(lineStart, pos + k);
+          lineStart = pos + k + 1;
+          skipLf    = true;
+        } else {
+          skipLf = false;
+        }
+      }
+      pos += n;
+    }
+    if (lineStart < size) {
+      consumer.accept(lineStart, size);
+    }
+  }
+
+  /**
+   * 把[pos, pos + len)复制到dst中
+   */
+  public void copyTo(long pos, byte[] dst, int off, int len) {
+
+    checkRange(pos, pos + len);
+    mapping.acquire();
+    try {
+      copy(pos, dst, off, len);
+    } finally {
+      mapping.release();
+    }
+  }
+
+  private void copy(long pos, byte[] dst, int off, int len) {
+
+    while (len > 0) {
+      long       abs = offset + pos;
+      ByteBuffer seg = mapping.segment(abs).duplicate();
+      int        j   = mapping.indexOf(abs);
+      int        n   = Math.min(seg.limit() - j, len);
+      seg.position(j);
+      seg.get(dst, off, n);
+      pos += n;
+      off += n;
+      len -= n;
+    }
+  }
+
+  /**
+   * 逐行解码为字符串，每行只经过一次按行复用的缓冲，不经过{@link java.io.Reader}。字符集与ASCII不兼容时经过Reader解码
+   */
+  @Override
+  public ZeroFlow<String> toSeq() {
+
+    if (!byteLines) {
+      return ByteSource.super.toSeq();
+    }
+    return c -> {
+      byte[][] buf = {new byte[256]};
+      consumeLines((from, to) -> {
+        int len = (int) (to - from);
+        if (buf[0].length < len) {
+          buf[0] = new byte[Math.max(len, buf[0].length << 1)];
+        }
+        //consumeLines期间已持有映射
+        copy(from, buf[0], 0, len);
+        c.accept(new String(buf[0], 0, len, charset));
+      });
+    };
+  }
+
+  @Override
+  public ZeroFlow<String> parallelLines(Async async, int parts, boolean ordered) {
+
+    if (parts <= 0) {
+      throw new IllegalArgumentException("non-positive parts");
+    }
+    if (!byteLines) {
+      return toSeq();
+    }
+    if (!ordered) {
+      return c -> {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        try {
+          async.joinAll(split(parts).map(s -> () -> s.consumeRange(cancelled, c)));
+        } finally {
+          cancelled.set(true);
+        }
+      };
+    }
+    int n = (int) Math.min(Integer.MAX_VALUE, Math.max(parts, (size + ORDERED_RANGE - 1) / ORDERED_RANGE));
+    return c -> {
+      AtomicBoolean cancelled = new AtomicBoolean();
+      try {
+        split(n).mapParallel(async, parts, s -> {
+          BatchedZeroFlow<String> batched = new BatchedZeroFlow<>();
+          s.consumeRange(cancelled, batched::add);
+          return batched;
+        }).consume(b -> b.consume(c));
+      } finally {
+        cancelled.set(true);
+      }
+    };
+  }
+
+  /**
+   * 并行遍历中的一个区间。下游提前结束或其它区间出错后cancelled被置位，还没开始的区间不再读取，正在读取的区间在下一行停止。
+   * cancelled总是先于映射关闭置位，因此此时映射已关闭不算错误
+   */
+  private void consumeRange(AtomicBoolean cancelled, java.util.function.Consumer<String> c) {
+
+    if (cancelled.get()) {
+      return;
+    }
+    try {
+      mapping.acquire();
+    } catch (IllegalStateException e) {
+      if (cancelled.get()) {
+        return;
+      }
+      throw e;
+    }
+    try {
+      toSeq().consume(t -> {
+        if (cancelled.get()) {
+          ZeroFlow.stop();
+        }
+        c.accept(t);
+      });
+    } finally {
+      mapping.release();
+    }
+  }
+
+  /**
+   * 按字节数大致均分为n个区间，除第一个外每个区间的开头都后移到下一个换行符之后，保证每行只属于一个区间
+   */
+  ZeroFlow<MappedByteSource> split(int n) {
+
+    return c -> {
+      long from = 0;
+      for (int k = 1; k <= n && from < size; k++) {
+        long to = k == n ? size : Math.max(from, size / n * k + size % n * k / n);
+        if (to > 0 && to < size) {
+          long lf = indexOf((byte) '\n', to - 1);
+          to = lf < 0 ? size : lf + 1;
+        }
+        if (to > from) {
+          c.accept(slice(from, to));
+          from = to;
+        }
+      }
+    };
+  }
+
+  @Override
+  public InputStream call() {
+
+    mapping.checkOpen();
+    return new InputStream() {
+
+      long pos;
+
+      @Override
+      public int read() {
+
+        return pos < size ? get(pos++) & 0xff : -1;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) {
+
+        if (len == 0) {
+          return 0;
+        }
+        if (pos >= size) {
+          return -1;
+        }
+        int n = (int) Math.min(len, size - pos);
+        copyTo(pos, b, off, n);
+        pos += n;
+        return n;
+      }
+
+      @Override
+      public long skip(long n) {
+
+        long skipped = Math.max(0, Math.min(n, size - pos));
+        pos += skipped;
+        return skipped;
+      }
+
+      @Override
+      public int available() {
+
+        return (int) Math.min(Integer.MAX_VALUE, size - pos);
+      }
+    };
+  }
+
+  @Override
+  public byte[] toBytes() {
+
+    if (size > Integer.MAX_VALUE - 8) {
+      throw new IllegalStateException("too large for a byte array: " + size);
+    }
+    byte[] bytes = new byte[(int) size];
+    copyTo(0, bytes, 0, bytes.length);
+    return bytes;
+  }
+
+  @Override
+  public ByteSource cache() {
+
+    return this;
+  }
+
+  @Override
+  public Charset charset() {
+
+    return charset;
+  }
+
+  /**
+   * 与ASCII不兼容的字符集不能按字节并行切行，见类注释
+   */
+  @Override
+  public MappedByteSource withCharset(Charset charset) {
+
+    return new MappedByteSource(mapping, offset, size, charset);
+  }
+
+  @Override
+  public Path write(Path target) {
+
+    mapping.acquire();
+    try {
+      IOChain.apply(target, this::writeTo);
+    } finally {
+      mapping.release();
+    }
+    return target;
+  }
+
+  private Path writeTo(Path t) throws IOException {
+
+    try (FileChannel channel = FileChannel.open(t, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      for (long pos = 0; pos < size; ) {
+        long       abs = offset + pos;
+        ByteBuffer seg = mapping.segment(abs).duplicate();
+        int        j   = mapping.indexOf(abs);
+        int        n   = (int) Math.min(seg.limit() - j, size - pos);
+        seg.position(j).limit(j + n);
+        while (seg.hasRemaining()) {
+          channel.write(seg);
+        }
+        pos += n;
+      }
+    }
+    return t;
+  }
+
+  public boolean isClosed() {
+
+    return mapping.isClosed();
+  }
+
+  /**
+   * 解除映射。只有{@link ByteSource#mapped(Path)}得到的原文件能关闭，切片上调用无效果。
+   * 之后的读取抛出{@link IllegalStateException}，正在进行的读取（包括在其回调中关闭）结束后才真正解除映射
+   */
+  @Override
+  public void close() {
+
+    if (offset == 0 && size == mapping.size) {
+      mapping.close();
+    }
+  }
+
+  private void checkRange(long from, long to) {
+
+    mapping.checkOpen();
+    if (from < 0 || to > size || from > to) {
+      throw new IndexOutOfBoundsException("Range: [" + from + ", " + to + "), Size: " + size);
+    }
+  }
+
+  public interface RangeConsumer {
+
+    void accept(long from, long to);
+
+  }
+
+  static final class Mapping {
+
+    final MappedByteBuffer[] segments;
+
+    final int shift;
+
+    final long mask;
+
+    final long size;
+
+    /**
+     * 读取数乘2，最低位表示已关闭
+     */
+    final AtomicInteger state = new AtomicInteger();
+
+    Mapping(MappedByteBuffer[] segments, int shift) {
+
+      long size = 0;
+      for (MappedByteBuffer segment : segments) {
+        size += segment.limit();
+      }
+      this.segments = segments;
+      this.shift    = shift;
+      this.mask     = (1L << shift) - 1;
+      this.size     = size;
+    }
+
+    ByteBuffer segment(long abs) {
+
+      return segments[(int) (abs >>> shift)];
+    }
+
+    int indexOf(long abs) {
+
+      return (int) (abs & mask);
+    }
+
+    boolean isClosed() {
+
+      return (state.get() & 1) != 0;
+    }
+
+    void checkOpen() {
+
+      checkOpen(state.get());
+    }
+
+    /**
+     * 开始读取，已关闭时抛出{@link IllegalStateException}，必须与{@link #release()}成对调用
+     */
+    void acquire() {
+
+      while (true) {
+        int s = state.get();
+        checkOpen(s);
+        if (state.compareAndSet(s, s + 2)) {
+          return;
+        }
+      }
+    }
+
+    void release() {
+
+      if (state.addAndGet(-2) == 1) {
+        unmap();
+      }
+    }
+
+    void close() {
+
+      int s = state.getAndUpdate(x -> x | 1);
+      if (s == 0) {
+        unmap();
+      }
+    }
+
+    private void checkOpen(int s) {
+
+      if ((s & 1) != 0) {
+        throw new IllegalStateException("mapping closed");
+      }
+    }
+
+    private void unmap() {
+
+      for (MappedByteBuffer segment : segments) {
+        DirectMemory.free(segment);
+      }
+    }
+
+  }
+
+}
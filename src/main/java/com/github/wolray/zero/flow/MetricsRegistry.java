@@ -0,0 +1,163 @@
+package com.github.wolray.zero.flow;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 流水线各阶段指标的接收方，每个被{@link ZeroFlow#instrument(String)}标记的阶段每次消费结束时上报一次。
+ * 可以接入外部的监控系统，默认是{@link InMemory}
+ *
+ * @author wolray
+ * @see Instrumentation
+ */
+public interface MetricsRegistry {
+
+  static InMemory inMemory() {
+
+    return new InMemory();
+  }
+
+  /**
+   * @param in
+   *     从上一个标记点流入的元素数，没有上游标记时为-1
+   * @param out
+   *     流出到下游的元素数
+   * @param selfNanos
+   *     阶段本身的耗时，即上一个标记点到本标记点之间的操作，没有上游标记时包括源
+   * @param downstreamNanos
+   *     下游的耗时
+   * @param stopped
+   *     是否被下游短路
+   */
+  void record(String stage, long in, long out, long selfNanos, long downstreamNanos, boolean stopped);
+
+  /**
+   * 内存中的累计值，按阶段第一次上报的顺序排列
+   */
+  final class InMemory implements MetricsRegistry {
+
+    private final Map<String, Stage> stages = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    @Override
+    public void record(String stage, long in, long out, long selfNanos, long downstreamNanos, boolean stopped) {
+
+      stages.computeIfAbsent(stage, Stage::new).add(in, out, selfNanos, downstreamNanos, stopped);
+    }
+
+    /**
+     * @return 没有上报过时为null
+     */
+    public Stage get(String stage) {
+
+      return stages.get(stage);
+    }
+
+    public Map<String, Stage> stages() {
+
+      synchronized (stages) {
+        return new LinkedHashMap<>(stages);
+      }
+    }
+
+    public void reset() {
+
+      stages.clear();
+    }
+
+    @Override
+    public String toString() {
+
+      StringBuilder sb = new StringBuilder();
+      for (Stage stage : stages().values()) {
+        sb.append(stage).append('\n');
+      }
+      return sb.toString();
+    }
+
+  }
+
+  final class Stage {
+
+    private final String name;
+
+    private final LongAdder runs = new LongAdder();
+
+    private final LongAdder in = new LongAdder();
+
+    private final LongAdder out = new LongAdder();
+
+    private final LongAdder selfNanos = new LongAdder();
+
+    private final LongAdder downstreamNanos = new LongAdder();
+
+    private final LongAdder stops = new LongAdder();
+
+    Stage(String name) {
+
+      this.name = name;
+    }
+
+    void add(long in, long out, long selfNanos, long downstreamNanos, boolean stopped) {
+
+      runs.increment();
+      if (in >= 0) {
+        this.in.add(in);
+      }
+      this.out.add(out);
+      this.selfNanos.add(selfNanos);
+      this.downstreamNanos.add(downstreamNanos);
+      if (stopped) {
+        stops.increment();
+      }
+    }
+
+    public String name() {
+
+      return name;
+    }
+
+    public long runs() {
+
+      return runs.sum();
+    }
+
+    /**
+     * 只累计有上游标记的消费
+     */
+    public long in() {
+
+      return in.sum();
+    }
+
+    public long out() {
+
+      return out.sum();
+    }
+
+    public long selfNanos() {
+
+      return selfNanos.sum();
+    }
+
+    public long downstreamNanos() {
+
+      return downstreamNanos.sum();
+    }
+
+    public long stops() {
+
+      return stops.sum();
+    }
+
+    @Override
+    public String toString() {
+
+      return String.format("%s: runs=%d, in=%d, out=%d, self=%.3fms, downstream=%.3fms, stops=%d",
+          name, runs(), in(), out(), selfNanos() / 1e6, downstreamNanos() / 1e6, stops());
+    }
+
+  }
+
+}
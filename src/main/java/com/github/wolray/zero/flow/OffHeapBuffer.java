@@ -0,0 +1,106 @@
+package com.github.wolray.zero.flow;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+
+/**
+ * 堆外的定宽数据缓冲，由若干个等长的直接内存{@link ByteBuffer}段组成，下标访问O(1)。 <br/> 数据不占用堆，
+ * {@link #close()}时通过{@link DirectMemory}立即释放直接内存，之后再遍历、读写或计数都会抛出{@link IllegalStateException}
+ *
+ * @author wolray
+ * @see IntZeroFlow#offHeap()
+ */
+abstract class OffHeapBuffer implements AutoCloseable {
+
+  /**
+   * 每段的字节数
+   */
+  static final int SEGMENT_BYTES = 1 << 18;
+
+  /**
+   * 每段元素数的log2
+   */
+  final int shift;
+
+  final int mask;
+
+  private final ArrayList<ByteBuffer> segments = new ArrayList<>();
+
+  int size;
+
+  private boolean closed;
+
+  OffHeapBuffer(int width) {
+
+    this.shift = Integer.numberOfTrailingZeros(SEGMENT_BYTES / width);
+    this.mask  = (1 << shift) - 1;
+  }
+
+  public int size() {
+
+    return size;
+  }
+
+  /**
+   * 已申请的直接内存字节数
+   */
+  public long bytes() {
+
+    return (long) segments.size() * SEGMENT_BYTES;
+  }
+
+  public boolean isClosed() {
+
+    return closed;
+  }
+
+  /**
+   * 下标所在的段，调用方负责检查下标
+   */
+  ByteBuffer segment(int index) {
+
+    checkOpen();
+    return segments.get(index >>> shift);
+  }
+
+  /**
+   * 追加时下一个元素所在的段，满了就新申请一段
+   */
+  ByteBuffer tail() {
+
+    checkOpen();
+    int s = size >>> shift;
+    if (s == segments.size()) {
+      segments.add(ByteBuffer.allocateDirect(SEGMENT_BYTES).order(ByteOrder.nativeOrder()));
+    }
+    return segments.get(s);
+  }
+
+  void checkIndex(int index) {
+
+    checkOpen();
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+  void checkOpen() {
+
+    if (closed) {
+      throw new IllegalStateException("buffer closed");
+    }
+  }
+
+  @Override
+  public void close() {
+
+    if (!closed) {
+      closed = true;
+      segments.forEach(DirectMemory::free);
+      segments.clear();
+      size = 0;
+    }
+  }
+
+}
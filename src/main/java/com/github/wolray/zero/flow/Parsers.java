@@ -0,0 +1,339 @@
+package com.github.wolray.zero.flow;
+
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+
+/**
+ * 在字符序列或字节数组的[start, end)区间上直接解析数字和时间，不创建子串。 <br/> 字节数组按ASCII处理，
+ * 每个方法的字符和字节两个版本共用同一份实现
+ *
+ * @author wolray
+ * @see Splitter#splitOffsets(CharSequence, IntZeroFlow.IntIntConsumer)
+ */
+public final class Parsers {
+
+  /**
+   * 能精确表示为double的10的幂
+   */
+  private static final double[] POW10 = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+      1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+  private Parsers() {
+
+  }
+
+  public static int parseInt(CharSequence s) {
+
+    return parseInt(s, 0, s.length());
+  }
+
+  public static int parseInt(CharSequence s, int start, int end) {
+
+    checkRange(s.length(), start, end);
+    return parseInt(s, null, start, end);
+  }
+
+  public static int parseInt(byte[] b, int start, int end) {
+
+    checkRange(b.length, start, end);
+    return parseInt(null, b, start, end);
+  }
+
+  public static long parseLong(CharSequence s) {
+
+    return parseLong(s, 0, s.length());
+  }
+
+  public static long parseLong(CharSequence s, int start, int end) {
+
+    checkRange(s.length(), start, end);
+    return parseLong(s, null, start, end);
+  }
+
+  public static long parseLong(byte[] b, int start, int end) {
+
+    checkRange(b.length, start, end);
+    return parseLong(null, b, start, end);
+  }
+
+  public static double parseDouble(CharSequence s) {
+
+    return parseDouble(s, 0, s.length());
+  }
+
+  /**
+   * 有效数字不超过2^53且十进制指数不超过22时直接由一次乘除得到正确舍入的结果，
+   * 其它情况（包括NaN、Infinity和十六进制）交给{@link Double#parseDouble(String)}
+   */
+  public static double parseDouble(CharSequence s, int start, int end) {
+
+    checkRange(s.length(), start, end);
+    return parseDouble(s, null, start, end);
+  }
+
+  public static double parseDouble(byte[] b, int start, int end) {
+
+    checkRange(b.length, start, end);
+    return parseDouble(null, b, start, end);
+  }
+
+  public static long parseEpochMillis(CharSequence s) {
+
+    return parseEpochMillis(s, 0, s.length());
+  }
+
+  /**
+   * 解析ISO-8601的日期或时间为毫秒时间戳，格式为{@code yyyy-MM-dd[(T| )HH:mm[:ss[.SSSSSSSSS]]][Z|±HH[[:]mm]]}，
+   * 没有时区时按UTC处理，秒的小数部分只保留到毫秒
+   *
+   * @throws DateTimeParseException
+   *     格式不对或日期不存在
+   */
+  public static long parseEpochMillis(CharSequence s, int start, int end) {
+
+    checkRange(s.length(), start, end);
+    return parseEpochMillis(s, null, start, end);
+  }
+
+  public static long parseEpochMillis(byte[] b, int start, int end) {
+
+    checkRange(b.length, start, end);
+    return parseEpochMillis(null, b, start, end);
+  }
+
+  private static char at(CharSequence s, byte[] b, int i) {
+
+    return b != null ? (char) (b[i] & 0xff) : s.charAt(i);
+  }
+
+  private static String text(CharSequence s, byte[] b, int start, int end) {
+
+    return b != null ? new String(b, start, end - start, StandardCharsets.ISO_8859_1) : s.subSequence(start, end).toString();
+  }
+
+  private static void checkRange(int length, int start, int end) {
+
+    if (start < 0 || end > length || start > end) {
+      throw new IndexOutOfBoundsException("Range: [" + start + ", " + end + "), Length: " + length);
+    }
+  }
+
+  private static NumberFormatException numberError(CharSequence s, byte[] b, int start, int end) {
+
+    return new NumberFormatException("For input string: \"" + text(s, b, start, end) + "\"");
+  }
+
+  private static int parseInt(CharSequence s, byte[] b, int start, int end) {
+
+    long value = parseLong(s, b, start, end);
+    if (value != (int) value) {
+      throw numberError(s, b, start, end);
+    }
+    return (int) value;
+  }
+
+  private static long parseLong(CharSequence s, byte[] b, int start, int end) {
+
+    if (start == end) {
+      throw numberError(s, b, start, end);
+    }
+    char    first    = at(s, b, start);
+    boolean negative = first == '-';
+    int     i        = negative || first == '+' ? start + 1 : start;
+    if (i == end) {
+      throw numberError(s, b, start, end);
+    }
+    //按负数累加，才能表示Long.MIN_VALUE
+    long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE, multMin = limit / 10, value = 0;
+    for (; i < end; i++) {
+      int d = at(s, b, i) - '0';
+      if (d < 0 || d > 9 || value < multMin) {
+        throw numberError(s, b, start, end);
+      }
+      value *= 10;
+      if (value < limit + d) {
+        throw numberError(s, b, start, end);
+      }
+      value -= d;
+    }
+    return negative ? value : -value;
+  }
+
+  private static double parseDouble(CharSequence s, byte[] b, int start, int end) {
+
+    int     i        = start;
+    boolean negative = false;
+    if (i < end && (at(s, b, i) == '-' || at(s, b, i) == '+')) {
+      negative = at(s, b, i++) == '-';
+    }
+    //最多保留19位有效数字，之后的数字只影响指数
+    long    mantissa = 0;
+    int     digits   = 0, exp10 = 0;
+    boolean any      = false, dot = false;
+    for (; i < end; i++) {
+      char ch = at(s, b, i);
+      if (ch == '.' && !dot) {
+        dot = true;
+        continue;
+      }
+      int d = ch - '0';
+      if (d < 0 || d > 9) {
+        break;
+      }
+      any = true;
+      if (digits < 19) {
+        mantissa = mantissa * 10 + d;
+        if (mantissa != 0) {
+          digits++;
+        }
+        if (dot) {
+          exp10--;
+        }
+      } else if (!dot) {
+        exp10++;
+      }
+    }
+    if (any && i < end && (at(s, b, i) | 0x20) == 'e') {
+      int     j   = i + 1;
+      boolean neg = j < end && at(s, b, j) == '-';
+      if (j < end && (neg || at(s, b, j) == '+')) {
+        j++;
+      }
+      int e = 0, from = j;
+      for (; j < end; j++) {
+        int d = at(s, b, j) - '0';
+        if (d < 0 || d > 9) {
+          break;
+        }
+        e = Math.min(e * 10 + d, 100000);
+      }
+      if (j > from) {
+        exp10 += neg ? -e : e;
+        i = j;
+      }
+    }
+    if (any && i == end) {
+      if (mantissa == 0) {
+        return negative ? -0.0 : 0.0;
+      }
+      if (mantissa < 1L << 53 && exp10 >= -22 && exp10 <= 22) {
+        double value = exp10 < 0 ? mantissa / POW10[-exp10] : mantissa * POW10[exp10];
+        return negative ? -value : value;
+      }
+    }
+    return Double.parseDouble(text(s, b, start, end));
+  }
+
+  private static long parseEpochMillis(CharSequence s, byte[] b, int start, int end) {
+
+    int year  = digits(s, b, start, end, start, 4);
+    int month = digits(s, b, start, end, expect(s, b, start, end, start + 4, '-'), 2);
+    int day   = digits(s, b, start, end, expect(s, b, start, end, start + 7, '-'), 2);
+    if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+      throw new DateTimeParseException("invalid date", text(s, b, start, end), 0);
+    }
+    long millis = epochDay(year, month, day) * 86400_000L;
+    int  i      = start + 10;
+    if (i == end) {
+      return millis;
+    }
+    char sep = at(s, b, i);
+    if (sep != 'T' && sep != 't' && sep != ' ') {
+      throw new DateTimeParseException("expect 'T'", text(s, b, start, end), i - start);
+    }
+    int hour   = digits(s, b, start, end, i + 1, 2);
+    int minute = digits(s, b, start, end, expect(s, b, start, end, i + 3, ':'), 2);
+    int second = 0, nanos = 0;
+    i += 6;
+    if (i < end && at(s, b, i) == ':') {
+      second = digits(s, b, start, end, i + 1, 2);
+      i += 3;
+      if (i < end && (at(s, b, i) == '.' || at(s, b, i) == ',')) {
+        int from = ++i;
+        for (; i < end && i - from < 9 && at(s, b, i) >= '0' && at(s, b, i) <= '9'; i++) {
+          nanos = nanos * 10 + at(s, b, i) - '0';
+        }
+        if (i == from) {
+          throw new DateTimeParseException("expect fraction", text(s, b, start, end), i - start);
+        }
+        for (int k = i - from; k < 9; k++) {
+          nanos *= 10;
+        }
+      }
+    }
+    if (hour > 23 || minute > 59 || second > 59) {
+      throw new DateTimeParseException("invalid time", text(s, b, start, end), 0);
+    }
+    millis += hour * 3600_000L + minute * 60_000L + second * 1000L + nanos / 1000_000;
+    if (i == end) {
+      return millis;
+    }
+    char zone = at(s, b, i);
+    if ((zone == 'Z' || zone == 'z') && i + 1 == end) {
+      return millis;
+    }
+    if (zone == '+' || zone == '-') {
+      int offsetHour = digits(s, b, start, end, i + 1, 2), offsetMinute = 0;
+      i += 3;
+      if (i < end) {
+        if (at(s, b, i) == ':') {
+          i++;
+        }
+        offsetMinute = digits(s, b, start, end, i, 2);
+        i += 2;
+      }
+      if (i == end && offsetHour <= 18 && offsetMinute <= 59) {
+        long offset = offsetHour * 3600_000L + offsetMinute * 60_000L;
+        return zone == '+' ? millis - offset : millis + offset;
+      }
+    }
+    throw new DateTimeParseException("invalid offset", text(s, b, start, end), i - start);
+  }
+
+  private static int expect(CharSequence s, byte[] b, int start, int end, int i, char ch) {
+
+    if (i >= end || at(s, b, i) != ch) {
+      throw new DateTimeParseException("expect '" + ch + "'", text(s, b, start, end), i - start);
+    }
+    return i + 1;
+  }
+
+  private static int digits(CharSequence s, byte[] b, int start, int end, int i, int n) {
+
+    if (i + n > end) {
+      throw new DateTimeParseException("text too short", text(s, b, start, end), i - start);
+    }
+    int value = 0;
+    for (int j = i; j < i + n; j++) {
+      int d = at(s, b, j) - '0';
+      if (d < 0 || d > 9) {
+        throw new DateTimeParseException("expect digit", text(s, b, start, end), j - start);
+      }
+      value = value * 10 + d;
+    }
+    return value;
+  }
+
+  private static int lengthOfMonth(int year, int month) {
+
+    if (month == 2) {
+      return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : 28;
+    }
+    return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+  }
+
+  /**
+   * 公历日期距1970-01-01的天数
+   */
+  private static long epochDay(int year, int month, int day) {
+
+    int y   = month <= 2 ? year - 1 : year;
+    int era = Math.floorDiv(y, 400);
+    int yoe = y - era * 400;
+    int doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+    return era * 146097L + doe - 719468;
+  }
+
+}
@@ -0,0 +1,87 @@
+package com.github.wolray.zero.flow;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 基于文件路径的数据源，能按字节区间拆分并行读取
+ *
+ * @author wolray
+ * @see ByteSource#of(Path)
+ */
+final class PathByteSource implements ByteSource {
+
+  private final Path path;
+
+  private final Charset charset;
+
+  PathByteSource(Path path, Charset charset) {
+
+    this.path    = path;
+    this.charset = charset;
+  }
+
+  @Override
+  public InputStream call() throws IOException {
+
+    return Files.newInputStream(path);
+  }
+
+  @Override
+  public byte[] toBytes() {
+
+    return IOChain.apply(path, Files::readAllBytes);
+  }
+
+  @Override
+  public IOChain<BufferedReader> toReader() {
+
+    return (Closable<BufferedReader>) () -> Files.newBufferedReader(path, charset);
+  }
+
+  @Override
+  public Charset charset() {
+
+    return charset;
+  }
+
+  @Override
+  public ByteSource withCharset(Charset charset) {
+
+    return new PathByteSource(path, charset);
+  }
+
+  /**
+   * 每次遍历时映射文件，遍历结束后解除映射。字符集与ASCII不兼容时退化为单线程的{@link #toSeq()}
+   */
+  @Override
+  public ZeroFlow<String> parallelLines(Async async, int parts, boolean ordered) {
+
+    if (parts <= 0) {
+      throw new IllegalArgumentException("non-positive parts");
+    }
+    if (!MappedByteSource.isAsciiCompatible(charset)) {
+      return toSeq();
+    }
+    return c -> {
+      try (MappedByteSource mapped = ByteSource.mapped(path)) {
+        mapped.withCharset(charset).parallelLines(async, parts, ordered).consume(c);
+      }
+    };
+  }
+
+  @Override
+  public Path write(Path target) {
+
+    if (!path.equals(target)) {
+      IOChain.apply(path, p -> Files.copy(p, target, StandardCopyOption.REPLACE_EXISTING));
+    }
+    return target;
+  }
+
+}
@@ -0,0 +1,172 @@
+package com.github.wolray.zero.flow;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 把推式的流转为拉式的迭代器。 <br/> 第一次{@link #hasNext()}时才在虚拟线程（不支持时为守护线程）中启动生产者，
+ * 生产者通过容量很小的{@link RingChannel}交给迭代器，满时阻塞，所以无限的流也只会多算出缓冲大小的数据。
+ * 迭代结束、{@link #close()}或迭代器被回收时，生产者会在下一次发送时停止
+ *
+ * @author wolray
+ * @see ZeroFlow#iterator()
+ */
+public final class PullIterator<T> implements Iterator<T>, AutoCloseable {
+
+  private static final ReferenceQueue<PullIterator<?>> QUEUE = new ReferenceQueue<>();
+
+  /**
+   * 持有未被回收的迭代器的引用，引用本身被回收就不会入队了
+   */
+  private static final Set<Cleanup> PENDING = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+  private static volatile Thread reaper;
+
+  private final ZeroFlow<T> source;
+
+  private final RingChannel<T> channel;
+
+  private Cleanup cleanup;
+
+  private Object next;
+
+  private boolean done;
+
+  PullIterator(ZeroFlow<T> source, int buffer) {
+
+    if (buffer <= 0) {
+      throw new IllegalArgumentException("buffer must be positive: " + buffer);
+    }
+    this.source  = source;
+    this.channel = new RingChannel<>(buffer, RingChannel.Overflow.BLOCK);
+  }
+
+  @Override
+  public boolean hasNext() {
+
+    if (next != null) {
+      return true;
+    }
+    if (done) {
+      return false;
+    }
+    if (cleanup == null) {
+      start();
+    }
+    Object o = channel.take();
+    if (o == RingChannel.END) {
+      close();
+      channel.rethrow();
+      return false;
+    }
+    next = o;
+    return true;
+  }
+
+  @Override
+  public T next() {
+
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    Object o = next;
+    next = null;
+    return channel.unwrap(o);
+  }
+
+  /**
+   * 提前结束迭代并释放生产者，可以重复调用
+   */
+  @Override
+  public void close() {
+
+    done = true;
+    next = null;
+    channel.cancel();
+    if (cleanup != null) {
+      PENDING.remove(cleanup);
+      cleanup.clear();
+    }
+  }
+
+  /**
+   * 模拟迭代器被回收：把清理引用放入回收队列，效果与垃圾回收时入队相同
+   */
+  void reclaim() {
+
+    if (cleanup != null) {
+      cleanup.enqueue();
+    }
+  }
+
+  private void start() {
+
+    cleanup = new Cleanup(this, channel);
+    PENDING.add(cleanup);
+    startReaper();
+    //生产者只能引用通道，不能引用迭代器本身，否则迭代器永远不会被回收
+    ZeroFlow<T>    source  = this.source;
+    RingChannel<T> channel = this.channel;
+    VirtualThreads.newThread(() -> {
+      try {
+        source.consumeTillStop(t -> {
+          if (!channel.offer(t)) {
+            ZeroFlow.stop();
+          }
+        });
+      } catch (RuntimeException | Error e) {
+        channel.fail(e);
+      } finally {
+        channel.close();
+      }
+    }).start();
+  }
+
+  private static void startReaper() {
+
+    if (reaper != null) {
+      return;
+    }
+    synchronized (QUEUE) {
+      if (reaper == null) {
+        Thread thread = new Thread(PullIterator::reap, "zero-flow-pull-reaper");
+        thread.setDaemon(true);
+        thread.start();
+        reaper = thread;
+      }
+    }
+  }
+
+  private static void reap() {
+
+    while (true) {
+      try {
+        Cleanup cleanup = (Cleanup) QUEUE.remove();
+        PENDING.remove(cleanup);
+        cleanup.channel.cancel();
+      } catch (InterruptedException ignored) {
+      }
+    }
+  }
+
+  /**
+   * 迭代器被回收后取消对应的通道
+   */
+  private static final class Cleanup extends PhantomReference<PullIterator<?>> {
+
+    final RingChannel<?> channel;
+
+    Cleanup(PullIterator<?> referent, RingChannel<?> channel) {
+
+      super(referent, QUEUE);
+      this.channel = channel;
+    }
+
+  }
+
+}
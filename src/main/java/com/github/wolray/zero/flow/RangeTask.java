@@ -0,0 +1,39 @@
+package com.github.wolray.zero.flow;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * {@link Async.ForkJoin#joinRange}中递归二分的区间任务
+ *
+ * @author wolray
+ */
+final class RangeTask extends RecursiveAction {
+
+  final int from;
+
+  final int to;
+
+  final int leafSize;
+
+  final IntZeroFlow.IntIntConsumer consumer;
+
+  RangeTask(int from, int to, int leafSize, IntZeroFlow.IntIntConsumer consumer) {
+
+    this.from     = from;
+    this.to       = to;
+    this.leafSize = leafSize;
+    this.consumer = consumer;
+  }
+
+  @Override
+  protected void compute() {
+
+    if (to - from <= leafSize) {
+      consumer.accept(from, to);
+    } else {
+      int mid = (from + to) >>> 1;
+      invokeAll(new RangeTask(from, mid, leafSize, consumer), new RangeTask(mid, to, leafSize, consumer));
+    }
+  }
+
+}
@@ -4,6 +4,7 @@ import com.github.wolray.zero.flow.pair.DoublePair;
 import com.github.wolray.zero.flow.pair.IntPair;
 import com.github.wolray.zero.flow.pair.LongPair;
 import com.github.wolray.zero.flow.pair.Pair;
+import com.github.wolray.zero.flow.primitive.IntObjectHashMap;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -13,6 +14,7 @@ import java.util.Set;
 import java.util.StringJoiner;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -68,12 +70,16 @@ public interface Reducer<T, V> {
         a[1] += 1; // 权重
       };
     }
-    return Transducer.of(() -> new double[2], biConsumer, a -> a[1] != 0 ? a[0] / a[1] : 0);
+    return Transducer.of(() -> new double[2], biConsumer, (a, b) -> {
+      a[0] += b[0];
+      a[1] += b[1];
+      return a;
+    }, a -> a[1] != 0 ? a[0] / a[1] : 0);
   }
 
   static <T, C extends Collection<T>> Reducer<T, C> collect(Supplier<C> des) {
 
-    return of(des, Collection::add);
+    return of(des, Collection::add, ReducerUtil::addAll, null);
   }
 
   static <T, V> Reducer<T, V> of(Supplier<V> supplier, BiConsumer<V, T> accumulator) {
@@ -83,6 +89,17 @@ public interface Reducer<T, V> {
 
   static <T, V> Reducer<T, V> of(Supplier<V> supplier, BiConsumer<V, T> accumulator, Consumer<V> finisher) {
 
+    return of(supplier, accumulator, null, finisher);
+  }
+
+  /**
+   * @param combiner
+   *     合并两个中间结果，为空时不支持并行归约
+   */
+  static <T, V> Reducer<T, V> of(
+      Supplier<V> supplier, BiConsumer<V, T> accumulator, BinaryOperator<V> combiner, Consumer<V> finisher
+  ) {
+
     return new Reducer<T, V>() {
 
       @Override
@@ -97,6 +114,12 @@ public interface Reducer<T, V> {
         return supplier;
       }
 
+      @Override
+      public BinaryOperator<V> combiner() {
+
+        return combiner;
+      }
+
       @Override
       public Consumer<V> finisher() {
 
@@ -107,7 +130,7 @@ public interface Reducer<T, V> {
 
   static <T> Transducer<T, ?, Integer> count() {
 
-    return Transducer.of(() -> new int[1], (a, t) -> a[0]++, a -> a[0]);
+    return Transducer.of(() -> new int[1], (a, t) -> a[0]++, ReducerUtil::sumInts, a -> a[0]);
   }
 
   /**
@@ -131,7 +154,7 @@ public interface Reducer<T, V> {
       if (predicate.test(t)) {
         a[0]++;
       }
-    }, a -> a[0]);
+    }, ReducerUtil::sumInts, a -> a[0]);
   }
 
   static <T> Reducer<T, ArrayListZeroFlow<T>> filtering(Predicate<T> predicate) {
@@ -146,12 +169,12 @@ public interface Reducer<T, V> {
       if (predicate.test(t)) {
         accumulator.accept(v, t);
       }
-    }, reducer.finisher());
+    }, reducer.combiner(), reducer.finisher());
   }
 
   static <T> Reducer<T, ArrayListZeroFlow<T>> toList() {
 
-    return of(ArrayListZeroFlow::new, ArrayListZeroFlow::add);
+    return of(ArrayListZeroFlow::new, ArrayListZeroFlow::add, ReducerUtil::addAll, null);
   }
 
   static <T, V, E> Transducer<T, V, E> filtering(Predicate<T> predicate, Transducer<T, V, E> transducer) {
@@ -168,9 +191,10 @@ public interface Reducer<T, V> {
 
   static <T, K, V> Reducer<T, MapZeroFlow<K, V>> groupBy(Function<T, K> toKey, Reducer<T, V> reducer) {
 
-    Supplier<V>      supplier    = reducer.supplier();
-    BiConsumer<V, T> accumulator = reducer.accumulator();
-    Consumer<V>      finisher    = reducer.finisher();
+    Supplier<V>       supplier    = reducer.supplier();
+    BiConsumer<V, T>  accumulator = reducer.accumulator();
+    BinaryOperator<V> combiner    = reducer.combiner();
+    Consumer<V>       finisher    = reducer.finisher();
     return of(
         MapZeroFlow::hash,
         (m, t) -> {
@@ -181,13 +205,46 @@ public interface Reducer<T, V> {
               t
           );
         },
+        combiner == null ? null : (m1, m2) -> {
+          m2.forEach((k, v) -> m1.merge(k, v, combiner));
+          return m1;
+        },
         finisher == null ? null : m -> m.justValues().consume(finisher)
     );
   }
 
+  static <T, V, E> Transducer<T, ?, IntObjectHashMap<E>> groupByInt(
+      ToIntFunction<T> toKey, Transducer<T, V, E> transducer
+  ) {
+
+    return Transducer.of(groupByInt(toKey, transducer.reducer()), m -> m.replaceValue(transducer.transformer()));
+  }
+
+  static <T, V> Reducer<T, IntObjectHashMap<V>> groupByInt(ToIntFunction<T> toKey, Reducer<T, V> reducer) {
+
+    Supplier<V>       supplier    = reducer.supplier();
+    BiConsumer<V, T>  accumulator = reducer.accumulator();
+    BinaryOperator<V> combiner    = reducer.combiner();
+    Consumer<V>       finisher    = reducer.finisher();
+    return of(
+        IntObjectHashMap::new,
+        (m, t) -> accumulator.accept(m.computeIfAbsent(toKey.applyAsInt(t), k -> supplier.get()), t),
+        combiner == null ? null : (m1, m2) -> {
+          m2.forEach((k, v) -> m1.merge(k, v, combiner));
+          return m1;
+        },
+        finisher == null ? null : m -> m.values().consume(finisher)
+    );
+  }
+
   static <T> Transducer<T, ?, String> join(String sep, Function<T, String> function) {
 
-    return Transducer.of(() -> new StringJoiner(sep), (j, t) -> j.add(function.apply(t)), StringJoiner::toString);
+    return Transducer.of(
+        () -> new StringJoiner(sep),
+        (j, t) -> j.add(function.apply(t)),
+        StringJoiner::merge,
+        StringJoiner::toString
+    );
   }
 
   static <T, E> Reducer<T, ArrayListZeroFlow<E>> mapping(Function<T, E> mapper) {
@@ -201,7 +258,7 @@ public interface Reducer<T, V> {
     return of(reducer.supplier(), (v, t) -> {
       E e = mapper.apply(t);
       accumulator.accept(v, e);
-    }, reducer.finisher());
+    }, reducer.combiner(), reducer.finisher());
   }
 
   static <T, R, V, E> Transducer<T, V, E> mapping(Function<T, R> mapper, Transducer<R, V, E> transducer) {
@@ -226,7 +283,7 @@ public interface Reducer<T, V> {
         }
         return p;
       });
-    });
+    }, (r1, r2) -> r1.get().second.compareTo(r2.get().second) < 0 ? r2 : r1, null);
   }
 
   static <T, V extends Comparable<V>> Reducer<T, Pair<T, V>> maxBy(Function<T, V> function) {
@@ -236,7 +293,7 @@ public interface Reducer<T, V> {
       if (p.second == null || p.second.compareTo(v) < 0) {
         p.set(t, v);
       }
-    });
+    }, (p1, p2) -> p2.second != null && (p1.second == null || p1.second.compareTo(p2.second) < 0) ? p2 : p1, null);
   }
 
   static <T> Reducer<T, IntPair<T>> maxByInt(ToIntFunction<T> function) {
@@ -247,7 +304,7 @@ public interface Reducer<T, V> {
         p.first  = v;
         p.second = t;
       }
-    });
+    }, (p1, p2) -> p2.second != null && (p1.second == null || p1.first < p2.first) ? p2 : p1, null);
   }
 
   static <T> Reducer<T, DoublePair<T>> maxByDouble(ToDoubleFunction<T> function) {
@@ -258,7 +315,7 @@ public interface Reducer<T, V> {
         p.first  = v;
         p.second = t;
       }
-    });
+    }, (p1, p2) -> p2.second != null && (p1.second == null || p1.first < p2.first) ? p2 : p1, null);
   }
 
   static <T> Reducer<T, LongPair<T>> maxByLong(ToLongFunction<T> function) {
@@ -269,7 +326,7 @@ public interface Reducer<T, V> {
         p.first  = v;
         p.second = t;
       }
-    });
+    }, (p1, p2) -> p2.second != null && (p1.second == null || p1.first < p2.first) ? p2 : p1, null);
   }
 
   static <T> Transducer<T, ?, T> min(Comparator<T> comparator) {
@@ -289,7 +346,7 @@ public interface Reducer<T, V> {
         }
         return p;
       });
-    });
+    }, (r1, r2) -> r1.get().second.compareTo(r2.get().second) > 0 ? r2 : r1, null);
   }
 
   static <T, V extends Comparable<V>> Reducer<T, Pair<T, V>> minBy(Function<T, V> function) {
@@ -299,7 +356,7 @@ public interface Reducer<T, V> {
       if (p.second == null || p.second.compareTo(v) > 0) {
         p.set(t, v);
       }
-    });
+    }, (p1, p2) -> p2.second != null && (p1.second == null || p1.second.compareTo(p2.second) > 0) ? p2 : p1, null);
   }
 
   static <T> Reducer<T, IntPair<T>> minByInt(ToIntFunction<T> function) {
@@ -310,7 +367,7 @@ public interface Reducer<T, V> {
         p.first  = v;
         p.second = t;
       }
-    });
+    }, (p1, p2) -> p2.second != null && (p1.second == null || p1.first > p2.first) ? p2 : p1, null);
   }
 
   static <T> Reducer<T, DoublePair<T>> minByDouble(ToDoubleFunction<T> function) {
@@ -321,7 +378,7 @@ public interface Reducer<T, V> {
         p.first  = v;
         p.second = t;
       }
-    });
+    }, (p1, p2) -> p2.second != null && (p1.second == null || p1.first > p2.first) ? p2 : p1, null);
   }
 
   static <T> Reducer<T, LongPair<T>> minByLong(ToLongFunction<T> function) {
@@ -332,7 +389,7 @@ public interface Reducer<T, V> {
         p.first  = v;
         p.second = t;
       }
-    });
+    }, (p1, p2) -> p2.second != null && (p1.second == null || p1.first > p2.first) ? p2 : p1, null);
   }
 
   static <T> Reducer<T, Pair<BatchedZeroFlow<T>, BatchedZeroFlow<T>>> partition(Predicate<T> predicate) {
@@ -342,12 +399,17 @@ public interface Reducer<T, V> {
 
   static <T, V> Reducer<T, Pair<V, V>> partition(Predicate<T> predicate, Reducer<T, V> reducer) {
 
-    BiConsumer<V, T> accumulator = reducer.accumulator();
-    Supplier<V>      supplier    = reducer.supplier();
-    Consumer<V>      finisher    = reducer.finisher();
+    BiConsumer<V, T>  accumulator = reducer.accumulator();
+    Supplier<V>       supplier    = reducer.supplier();
+    BinaryOperator<V> combiner    = reducer.combiner();
+    Consumer<V>       finisher    = reducer.finisher();
     return of(
         () -> new Pair<>(supplier.get(), supplier.get()),
         (p, t) -> accumulator.accept(predicate.test(t) ? p.first : p.second, t),
+        combiner == null ? null : (p1, p2) -> new Pair<>(
+            combiner.apply(p1.first, p2.first),
+            combiner.apply(p1.second, p2.second)
+        ),
         finisher == null ? null : p -> {
           finisher.accept(p.first);
           finisher.accept(p.second);
@@ -357,7 +419,10 @@ public interface Reducer<T, V> {
 
   static <T> Reducer<T, BatchedZeroFlow<T>> toBatched() {
 
-    return of(BatchedZeroFlow::new, BatchedZeroFlow::add);
+    return of(BatchedZeroFlow::new, BatchedZeroFlow::add, (b1, b2) -> {
+      b2.consume(b1::add);
+      return b1;
+    }, null);
   }
 
   static <T, V, R> Transducer<T, ?, Pair<R, R>> partition(Predicate<T> predicate, Transducer<T, V, R> transducer) {
@@ -406,44 +471,55 @@ public interface Reducer<T, V> {
 
   static <T> Transducer<T, ?, Double> sum(ToDoubleFunction<T> function) {
 
-    return Transducer.of(() -> new double[1], (a, t) -> a[0] += function.applyAsDouble(t), a -> a[0]);
+    return Transducer.of(() -> new double[1], (a, t) -> a[0] += function.applyAsDouble(t), (a, b) -> {
+      a[0] += b[0];
+      return a;
+    }, a -> a[0]);
   }
 
   static <T> Transducer<T, ?, Integer> sumInt(ToIntFunction<T> function) {
 
-    return Transducer.of(() -> new int[1], (a, t) -> a[0] += function.applyAsInt(t), a -> a[0]);
+    return Transducer.of(() -> new int[1], (a, t) -> a[0] += function.applyAsInt(t), ReducerUtil::sumInts, a -> a[0]);
   }
 
   static <T> Transducer<T, ?, Long> sumLong(ToLongFunction<T> function) {
 
-    return Transducer.of(() -> new long[1], (a, t) -> a[0] += function.applyAsLong(t), a -> a[0]);
+    return Transducer.of(() -> new long[1], (a, t) -> a[0] += function.applyAsLong(t), (a, b) -> {
+      a[0] += b[0];
+      return a;
+    }, a -> a[0]);
   }
 
   static <T> Reducer<T, ConcurrentQueueZeroFlow<T>> toConcurrentQueue() {
 
-    return of(ConcurrentQueueZeroFlow::new, ConcurrentQueueZeroFlow::add);
+    return of(ConcurrentQueueZeroFlow::new, ConcurrentQueueZeroFlow::add, ReducerUtil::addAll, null);
   }
 
   static <T> Reducer<T, LinkedListZeroFlow<T>> toLinkedList() {
 
-    return of(LinkedListZeroFlow::new, LinkedListZeroFlow::add);
+    return of(LinkedListZeroFlow::new, LinkedListZeroFlow::add, ReducerUtil::addAll, null);
   }
 
   static <T> Reducer<T, ArrayListZeroFlow<T>> toList(int initialCapacity) {
 
-    return of(() -> new ArrayListZeroFlow<>(initialCapacity), ArrayListZeroFlow::add);
+    return of(() -> new ArrayListZeroFlow<>(initialCapacity), ArrayListZeroFlow::add, ReducerUtil::addAll, null);
   }
 
   static <T, K, V> Reducer<T, MapZeroFlow<K, V>> toMap(Function<T, K> toKey, Function<T, V> toValue) {
 
-    return of(MapZeroFlow::hash, (m, t) -> m.put(toKey.apply(t), toValue.apply(t)));
+    return of(MapZeroFlow::hash, (m, t) -> m.put(toKey.apply(t), toValue.apply(t)), ReducerUtil::putAll, null);
   }
 
   static <T, K, V> Reducer<T, MapZeroFlow<K, V>> toMap(
       Supplier<Map<K, V>> mapSupplier, Function<T, K> toKey, Function<T, V> toValue
   ) {
 
-    return of(() -> MapZeroFlow.of(mapSupplier.get()), (m, t) -> m.put(toKey.apply(t), toValue.apply(t)));
+    return of(
+        () -> MapZeroFlow.of(mapSupplier.get()),
+        (m, t) -> m.put(toKey.apply(t), toValue.apply(t)),
+        ReducerUtil::putAll,
+        null
+    );
   }
 
   static <T, K> Reducer<T, MapZeroFlow<K, T>> toMapBy(Function<T, K> toKey) {
@@ -453,7 +529,7 @@ public interface Reducer<T, V> {
 
   static <T, K> Reducer<T, MapZeroFlow<K, T>> toMapBy(Supplier<Map<K, T>> mapSupplier, Function<T, K> toKey) {
 
-    return of(() -> MapZeroFlow.of(mapSupplier.get()), (m, t) -> m.put(toKey.apply(t), t));
+    return of(() -> MapZeroFlow.of(mapSupplier.get()), (m, t) -> m.put(toKey.apply(t), t), ReducerUtil::putAll, null);
   }
 
   static <T, V> Reducer<T, MapZeroFlow<T, V>> toMapWith(Function<T, V> toValue) {
@@ -463,17 +539,17 @@ public interface Reducer<T, V> {
 
   static <T, V> Reducer<T, MapZeroFlow<T, V>> toMapWith(Supplier<Map<T, V>> mapSupplier, Function<T, V> toValue) {
 
-    return of(() -> MapZeroFlow.of(mapSupplier.get()), (m, t) -> m.put(t, toValue.apply(t)));
+    return of(() -> MapZeroFlow.of(mapSupplier.get()), (m, t) -> m.put(t, toValue.apply(t)), ReducerUtil::putAll, null);
   }
 
   static <T> Reducer<T, SetZeroFlow<T>> toSet() {
 
-    return of(LinkedHashSetZeroFlow::new, Set::add);
+    return of(LinkedHashSetZeroFlow::new, Set::add, ReducerUtil::addAll, null);
   }
 
   static <T> Reducer<T, SetZeroFlow<T>> toSet(int initialCapacity) {
 
-    return of(() -> new LinkedHashSetZeroFlow<>(initialCapacity), Set::add);
+    return of(() -> new LinkedHashSetZeroFlow<>(initialCapacity), Set::add, ReducerUtil::addAll, null);
   }
 
   /**
@@ -490,6 +566,16 @@ public interface Reducer<T, V> {
    */
   Supplier<V> supplier();
 
+  /**
+   * 等价{@link Collector#combiner()}，合并两个中间结果，返回null表示不支持并行归约
+   *
+   * @see ZeroFlow#parallelReduce(Async, Reducer)
+   */
+  default BinaryOperator<V> combiner() {
+
+    return null;
+  }
+
   /**
    * 等价{@link Collector#finisher()} ()}
    *
@@ -497,10 +583,30 @@ public interface Reducer<T, V> {
    */
   Consumer<V> finisher();
 
+  /**
+   * 用{@link #combiner()}按顺序合并并行归约的中间结果，再执行{@link #finisher()}
+   */
+  default V combineAll(Iterable<V> partials) {
+
+    BinaryOperator<V> combiner = combiner();
+    V                 des      = null;
+    for (V v : partials) {
+      des = des == null ? v : combiner.apply(des, v);
+    }
+    if (des == null) {
+      des = supplier().get();
+    }
+    Consumer<V> finisher = finisher();
+    if (finisher != null) {
+      finisher.accept(des);
+    }
+    return des;
+  }
+
   default Reducer<T, V> then(Consumer<V> action) {
 
     Consumer<V> finisher = finisher();
-    return of(supplier(), accumulator(), finisher == null ? action : finisher.andThen(action));
+    return of(supplier(), accumulator(), combiner(), finisher == null ? action : finisher.andThen(action));
   }
 
 }
@@ -0,0 +1,64 @@
+package com.github.wolray.zero.flow;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+
+/**
+ * 内置{@link Reducer}的combiner，以及并行归约中间结果的合并
+ *
+ * @author wolray
+ */
+final class ReducerUtil {
+
+  private ReducerUtil() {
+
+  }
+
+  static <C extends Collection<?>> C addAll(C c1, C c2) {
+
+    @SuppressWarnings("unchecked")
+    Collection<Object> des = (Collection<Object>) c1;
+    des.addAll(c2);
+    return c1;
+  }
+
+  static <M extends Map<?, ?>> M putAll(M m1, M m2) {
+
+    @SuppressWarnings("unchecked")
+    Map<Object, Object> des = (Map<Object, Object>) m1;
+    des.putAll(m2);
+    return m1;
+  }
+
+  static int[] sumInts(int[] a, int[] b) {
+
+    a[0] += b[0];
+    return a;
+  }
+
+  /**
+   * 相邻的中间结果两两并行合并，逐层减半，合并保持partials的顺序，最后执行{@link Reducer#finisher()}
+   */
+  @SuppressWarnings("unchecked")
+  static <V> V combineTree(Async async, Reducer<?, V> reducer, List<V> partials) {
+
+    BinaryOperator<V> combiner = reducer.combiner();
+    List<V>           level    = partials;
+    while (level.size() > 1) {
+      List<V>  cur  = level;
+      Object[] next = new Object[(cur.size() + 1) >> 1];
+      async.joinRange(next.length, 1, (from, to) -> {
+        for (int i = from; i < to; i++) {
+          int l = i << 1;
+          next[i] = l + 1 < cur.size() ? combiner.apply(cur.get(l), cur.get(l + 1)) : cur.get(l);
+        }
+      });
+      level = Arrays.asList((V[]) next);
+    }
+    return reducer.combineAll(level);
+  }
+
+}
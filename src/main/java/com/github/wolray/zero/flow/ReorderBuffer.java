@@ -0,0 +1,130 @@
+package com.github.wolray.zero.flow;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 定长的重排序窗口：任务乱序完成，结果按提交顺序输出。 <br/> 生产线程提交和输出，工作线程只写入结果槽位，窗口满时生产线程park等待队首完成
+ *
+ * @author wolray
+ * @see ZeroFlow#mapParallel(Async, int, java.util.function.Function)
+ */
+final class ReorderBuffer<T> {
+
+  private static final Object NULL = new Object();
+
+  private final AtomicReferenceArray<Object> slots;
+
+  private final int capacity;
+
+  private long head;
+
+  private long tail;
+
+  private volatile Thread waiter;
+
+  ReorderBuffer(int capacity) {
+
+    this.capacity = capacity;
+    this.slots    = new AtomicReferenceArray<>(capacity);
+  }
+
+  boolean isEmpty() {
+
+    return head == tail;
+  }
+
+  boolean isFull() {
+
+    return tail - head == capacity;
+  }
+
+  /**
+   * 占用下一个槽位，调用前需保证窗口未满
+   */
+  int next() {
+
+    return (int) (tail++ % capacity);
+  }
+
+  void complete(int slot, T value) {
+
+    slots.set(slot, value == null ? NULL : value);
+    LockSupport.unpark(waiter);
+  }
+
+  void fail(int slot, Throwable e) {
+
+    slots.set(slot, new Failure(e));
+    LockSupport.unpark(waiter);
+  }
+
+  /**
+   * 不阻塞，输出队首连续已完成的结果
+   */
+  void drain(Consumer<T> consumer) {
+
+    while (head < tail) {
+      Object o = slots.get((int) (head % capacity));
+      if (o == null) {
+        return;
+      }
+      emit(o, consumer);
+    }
+  }
+
+  /**
+   * 阻塞直到队首完成并输出，然后继续输出已完成的结果
+   */
+  void awaitHead(Consumer<T> consumer) {
+
+    int    slot = (int) (head % capacity);
+    Object o    = slots.get(slot);
+    if (o == null) {
+      waiter = Thread.currentThread();
+      while ((o = slots.get(slot)) == null) {
+        LockSupport.park(this);
+      }
+      waiter = null;
+    }
+    emit(o, consumer);
+    drain(consumer);
+  }
+
+  void awaitAll(Consumer<T> consumer) {
+
+    while (!isEmpty()) {
+      awaitHead(consumer);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void emit(Object o, Consumer<T> consumer) {
+
+    slots.set((int) (head++ % capacity), null);
+    if (o instanceof Failure) {
+      Throwable e = ((Failure) o).error;
+      if (e instanceof RuntimeException) {
+        throw (RuntimeException) e;
+      }
+      if (e instanceof Error) {
+        throw (Error) e;
+      }
+      throw new RuntimeException(e);
+    }
+    consumer.accept(o == NULL ? null : (T) o);
+  }
+
+  static final class Failure {
+
+    final Throwable error;
+
+    Failure(Throwable error) {
+
+      this.error = error;
+    }
+
+  }
+
+}
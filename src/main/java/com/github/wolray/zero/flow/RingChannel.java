@@ -0,0 +1,280 @@
+package com.github.wolray.zero.flow;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 定长、无锁的单生产者单消费者通道。 <br/> 数据存放在环形数组中，只有消费者空闲或生产者被阻塞时才通过{@link LockSupport}park/unpark，
+ * 满时的行为由{@link Overflow}决定
+ *
+ * @author wolray
+ * @see Async#toChannel(int, Overflow, ZeroFlow)
+ */
+public class RingChannel<T> implements ZeroFlow<T> {
+
+  static final Object END = new Object();
+
+  private static final Object NULL = new Object();
+
+  private final AtomicReferenceArray<Object> slots;
+
+  private final int mask;
+
+  private final Overflow overflow;
+
+  private final AtomicLong head = new AtomicLong();
+
+  private final AtomicLong tail = new AtomicLong();
+
+  private volatile Thread consumerWaiter;
+
+  private volatile Thread producerWaiter;
+
+  private volatile boolean closed;
+
+  private volatile boolean consumerGone;
+
+  private volatile Throwable error;
+
+  private volatile long dropped;
+
+  /**
+   * @param capacity
+   *     容量，向上取整为2的幂
+   */
+  public RingChannel(int capacity, Overflow overflow) {
+
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("non-positive capacity");
+    }
+    int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    this.slots    = new AtomicReferenceArray<>(size);
+    this.mask     = size - 1;
+    this.overflow = overflow;
+  }
+
+  public int capacity() {
+
+    return mask + 1;
+  }
+
+  public int size() {
+
+    return (int) (tail.get() - head.get());
+  }
+
+  public boolean isEmpty() {
+
+    return head.get() == tail.get();
+  }
+
+  public boolean isClosed() {
+
+    return closed;
+  }
+
+  /**
+   * 按{@link Overflow}策略丢弃的数量
+   */
+  public long dropped() {
+
+    return dropped;
+  }
+
+  /**
+   * 生产者发送数据，满时按{@link Overflow}策略处理
+   *
+   * @return 通道已关闭或消费者已退出时返回false，生产者应停止生产
+   */
+  public boolean offer(T t) {
+
+    Object o = t == null ? NULL : t;
+    while (true) {
+      if (closed || consumerGone) {
+        return false;
+      }
+      long tl = tail.get();
+      long hd = head.get();
+      if (tl - hd <= mask) {
+        slots.set((int) tl & mask, o);
+        tail.set(tl + 1);
+        LockSupport.unpark(consumerWaiter);
+        return true;
+      }
+      switch (overflow) {
+        case DROP_NEWEST:
+          dropped++;
+          return true;
+        case DROP_OLDEST:
+          // 与消费者竞争head，抢到的一方拥有该槽位，失败时重新读取head和tail
+          if (head.compareAndSet(hd, hd + 1)) {
+            dropped++;
+          }
+          break;
+        default:
+          awaitNotFull();
+      }
+    }
+  }
+
+  /**
+   * 不阻塞地取出一个数据
+   *
+   * @return 通道为空时返回null
+   */
+  public T poll() {
+
+    Object o = pollRaw();
+    return o == null ? null : unwrap(o);
+  }
+
+  /**
+   * 生产者结束生产，消费者取完剩余数据后退出
+   */
+  public void close() {
+
+    closed = true;
+    LockSupport.unpark(consumerWaiter);
+  }
+
+  /**
+   * 生产者异常结束，消费者取完剩余数据后抛出该异常
+   */
+  public void fail(Throwable e) {
+
+    error = e;
+    close();
+  }
+
+  /**
+   * 消费者阻塞消费直到通道关闭，退出（包括被中断）后生产者的{@link #offer}将返回false
+   */
+  @Override
+  public void consume(Consumer<T> consumer) {
+
+    try {
+      Object o;
+      while ((o = take()) != END) {
+        consumer.accept(unwrap(o));
+      }
+      rethrow();
+    } finally {
+      cancel();
+    }
+  }
+
+  /**
+   * 消费者放弃消费，之后生产者的{@link #offer}将返回false
+   */
+  public void cancel() {
+
+    consumerGone = true;
+    LockSupport.unpark(producerWaiter);
+  }
+
+  /**
+   * 阻塞取出一个原始数据
+   *
+   * @return 通道关闭且已取完时返回{@link #END}
+   */
+  Object take() {
+
+    while (true) {
+      Object o = pollRaw();
+      if (o != null) {
+        return o;
+      }
+      if (closed) {
+        o = pollRaw();
+        return o != null ? o : END;
+      }
+      awaitNotEmpty();
+    }
+  }
+
+  /**
+   * 生产者异常结束时抛出其异常
+   */
+  void rethrow() {
+
+    Throwable e = error;
+    if (e instanceof RuntimeException) {
+      throw (RuntimeException) e;
+    }
+    if (e instanceof Error) {
+      throw (Error) e;
+    }
+    if (e != null) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private Object pollRaw() {
+
+    while (true) {
+      long hd = head.get();
+      if (hd == tail.get()) {
+        return null;
+      }
+      int    index = (int) hd & mask;
+      Object o     = slots.get(index);
+      if (overflow != Overflow.DROP_OLDEST) {
+        // 只有消费者移动head，先清空槽位再发布head，生产者之后才会写入这个槽位
+        slots.set(index, null);
+        head.set(hd + 1);
+        LockSupport.unpark(producerWaiter);
+        return o;
+      }
+      // 生产者也会移动head，抢到head后槽位可能已被下一轮写入，不再清空，由生产者覆盖
+      if (head.compareAndSet(hd, hd + 1)) {
+        LockSupport.unpark(producerWaiter);
+        return o;
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  T unwrap(Object o) {
+
+    return o == NULL ? null : (T) o;
+  }
+
+  private void awaitNotEmpty() {
+
+    consumerWaiter = Thread.currentThread();
+    while (isEmpty() && !closed) {
+      LockSupport.park(this);
+    }
+    consumerWaiter = null;
+  }
+
+  private void awaitNotFull() {
+
+    producerWaiter = Thread.currentThread();
+    while (tail.get() - head.get() > mask && !consumerGone && !closed) {
+      LockSupport.park(this);
+    }
+    producerWaiter = null;
+  }
+
+  /**
+   * 通道满时生产者的处理策略
+   */
+  public enum Overflow {
+    /**
+     * 阻塞生产者直到有空位
+     */
+    BLOCK,
+    /**
+     * 丢弃最早的数据
+     */
+    DROP_OLDEST,
+    /**
+     * 丢弃正要发送的数据
+     */
+    DROP_NEWEST
+  }
+
+}
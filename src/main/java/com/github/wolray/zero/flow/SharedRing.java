@@ -0,0 +1,272 @@
+package com.github.wolray.zero.flow;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 单生产者多订阅者的环形广播。 <br/> 生产者维护一个写入序号，每个订阅者维护自己的读取序号并批量读取，
+ * 读到的位置之前的数据才会被生产者覆盖（{@link SlowPolicy#BLOCK}）或直接被覆盖并计入{@link #dropped()}（{@link SlowPolicy#LAG}）。
+ * 新订阅者从环中最早的数据开始读取，生产者已在运行时最早的一个可能在它加入前就被覆盖，之后的数据在{@link SlowPolicy#BLOCK}下不会丢失
+ *
+ * @author wolray
+ * @see Async#toShared(int, boolean, SlowPolicy, ZeroFlow)
+ */
+public class SharedRing<T> implements ZeroFlow<T> {
+
+  private static final Object NULL = new Object();
+
+  /**
+   * park之前让出CPU的次数
+   */
+  private static final int SPINS = 64;
+
+  private final Async async;
+
+  private final ZeroFlow<T> source;
+
+  private final SlowPolicy policy;
+
+  private final AtomicReferenceArray<Object> slots;
+
+  private final int mask;
+
+  /**
+   * 已开始写入的序号上界，订阅者据此判断读到的数据是否已被覆盖
+   */
+  private final AtomicLong claim = new AtomicLong();
+
+  /**
+   * 已发布的序号上界
+   */
+  private final AtomicLong cursor = new AtomicLong();
+
+  private final CopyOnWriteArrayList<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+  private final AtomicInteger sleepers = new AtomicInteger();
+
+  /**
+   * 订阅次数，生产者发现变化时丢弃缓存的{@link #gate}
+   */
+  private final AtomicInteger registrations = new AtomicInteger();
+
+  private final LongAdder dropped = new LongAdder();
+
+  private final AtomicReference<Object> task = new AtomicReference<>(null);
+
+  private volatile Thread producerWaiter;
+
+  private volatile boolean done;
+
+  /**
+   * 生产者缓存的最慢订阅者序号
+   */
+  private long gate;
+
+  /**
+   * 生产者上次计算{@link #gate}时的订阅次数
+   */
+  private int gateRegistrations;
+
+  SharedRing(Async async, int buffer, SlowPolicy policy, ZeroFlow<T> source) {
+
+    if (buffer <= 0) {
+      throw new IllegalArgumentException("non-positive buffer");
+    }
+    int size = buffer == 1 ? 1 : Integer.highestOneBit(buffer - 1) << 1;
+    this.async  = async;
+    this.source = source;
+    this.policy = policy;
+    this.slots  = new AtomicReferenceArray<>(size);
+    this.mask   = size - 1;
+  }
+
+  /**
+   * 启动生产者，重复调用无效果
+   */
+  public void start() {
+
+    task.getAndUpdate(o -> o != null ? o : async.submit(this::emit));
+  }
+
+  /**
+   * 订阅，订阅者在{@link Async}中异步消费，生产者结束且读完剩余数据后退出
+   */
+  @Override
+  public void consume(Consumer<T> consumer) {
+
+    Subscriber sub = new Subscriber(Math.max(0, cursor.get() - slots.length()));
+    subscribers.add(sub);
+    registrations.incrementAndGet();
+    //生产者在看到新的订阅次数之前，最多还有一次按旧gate的写入，跳过它可能覆盖的槽位
+    sub.sequence.set(Math.max(0, cursor.get() - slots.length() + 1));
+    LockSupport.unpark(producerWaiter);
+    start();
+    async.submit(() -> read(sub, consumer));
+  }
+
+  /**
+   * 订阅者因落后太多而丢失的数据总数
+   */
+  public long dropped() {
+
+    return dropped.sum();
+  }
+
+  public int subscribers() {
+
+    return subscribers.size();
+  }
+
+  public boolean isDone() {
+
+    return done;
+  }
+
+  private void emit() {
+
+    try {
+      source.consume(this::publish);
+    } finally {
+      done = true;
+      for (Subscriber sub : subscribers) {
+        LockSupport.unpark(sub.waiter);
+      }
+    }
+  }
+
+  private void publish(T t) {
+
+    long seq = cursor.get();
+    if (policy == SlowPolicy.BLOCK) {
+      awaitGate(seq - slots.length());
+    }
+    claim.lazySet(seq + 1);
+    slots.lazySet((int) seq & mask, t == null ? NULL : t);
+    cursor.set(seq + 1);
+    if (sleepers.get() > 0) {
+      for (Subscriber sub : subscribers) {
+        LockSupport.unpark(sub.waiter);
+      }
+    }
+  }
+
+  private void awaitGate(long wrap) {
+
+    int r = registrations.get();
+    if (r != gateRegistrations) {
+      gateRegistrations = r;
+      gate              = minSequence(wrap + slots.length());
+    }
+    if (wrap < gate) {
+      return;
+    }
+    for (int i = 0; i < SPINS; i++) {
+      if (wrap < (gate = minSequence(wrap + slots.length()))) {
+        return;
+      }
+      Thread.yield();
+    }
+    producerWaiter = Thread.currentThread();
+    while (wrap >= (gate = minSequence(wrap + slots.length()))) {
+      LockSupport.park(this);
+    }
+    producerWaiter = null;
+  }
+
+  private long minSequence(long min) {
+
+    for (Subscriber sub : subscribers) {
+      min = Math.min(min, sub.sequence.get());
+    }
+    return min;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void read(Subscriber sub, Consumer<T> consumer) {
+
+    long seq = sub.sequence.get();
+    try {
+      while (true) {
+        long available = cursor.get();
+        if (seq == available) {
+          if (done) {
+            if (seq == cursor.get()) {
+              return;
+            }
+          } else {
+            await(sub, seq);
+          }
+          continue;
+        }
+        long floor = claim.get() - slots.length();
+        if (seq < floor) {
+          dropped.add(floor - seq);
+          seq = floor;
+        }
+        for (; seq < available; seq++) {
+          Object o = slots.get((int) seq & mask);
+          if (claim.get() - slots.length() > seq) {
+            break;
+          }
+          consumer.accept(o == NULL ? null : (T) o);
+        }
+        sub.sequence.set(seq);
+        LockSupport.unpark(producerWaiter);
+      }
+    } finally {
+      subscribers.remove(sub);
+      LockSupport.unpark(producerWaiter);
+    }
+  }
+
+  private void await(Subscriber sub, long seq) {
+
+    for (int i = 0; i < SPINS; i++) {
+      if (cursor.get() != seq || done) {
+        return;
+      }
+      Thread.yield();
+    }
+    sub.waiter = Thread.currentThread();
+    sleepers.incrementAndGet();
+    while (cursor.get() == seq && !done) {
+      LockSupport.park(this);
+    }
+    sleepers.decrementAndGet();
+    sub.waiter = null;
+  }
+
+  /**
+   * 订阅者跟不上生产者时的策略
+   */
+  public enum SlowPolicy {
+    /**
+     * 阻塞生产者直到最慢的订阅者读完
+     */
+    BLOCK,
+    /**
+     * 生产者不等待，落后的订阅者跳过被覆盖的数据并计入{@link #dropped()}
+     */
+    LAG
+  }
+
+  static final class Subscriber {
+
+    final AtomicLong sequence;
+
+    volatile Thread waiter;
+
+    Subscriber(long sequence) {
+
+      this.sequence = new AtomicLong(sequence);
+    }
+
+  }
+
+}
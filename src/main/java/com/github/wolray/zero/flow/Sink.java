@@ -0,0 +1,130 @@
+package com.github.wolray.zero.flow;
+
+import java.util.function.Consumer;
+
+/**
+ * 可协作短路的消费者。 <br/> 支持的源在推送每个元素之前检查{@link #cancelled()}，取消后直接正常返回，不经过异常展开；
+ * 源从未检查过时{@link #cancel()}退化为抛出{@link StopException}，所以对任何源都是安全的。
+ * 取消之后仍被推送的元素也会以{@link StopException}中断。map、filter、onEach和flatMap会把下游的取消状态传给上游
+ *
+ * @author wolray
+ * @see IntSink
+ */
+public abstract class Sink<T> implements Consumer<T> {
+
+  final Signal signal;
+
+  protected Sink() {
+
+    this.signal = new Signal(null);
+  }
+
+  /**
+   * @param downstream
+   *     下游为{@link Sink}或{@link IntSink}时，下游取消也视为本身取消，而本身取消不影响下游
+   */
+  protected Sink(Object downstream) {
+
+    this.signal = new Signal(Signal.of(downstream));
+  }
+
+  Sink(Signal signal) {
+
+    this.signal = signal;
+  }
+
+  /**
+   * 包一层取消状态的传递，下游不是{@link Sink}或{@link IntSink}时原样返回
+   *
+   * @param downstream
+   *     upstream最终推送的目标
+   */
+  static <T> Consumer<T> relay(Object downstream, Consumer<T> upstream) {
+
+    Signal signal = Signal.of(downstream);
+    return signal == null ? upstream : new Sink<T>(signal) {
+
+      @Override
+      protected void next(T t) {
+
+        upstream.accept(t);
+      }
+    };
+  }
+
+  @Override
+  public final void accept(T t) {
+
+    if (signal.isCancelled()) {
+      ZeroFlow.stop();
+    }
+    next(t);
+  }
+
+  protected abstract void next(T t);
+
+  /**
+   * 供源调用，返回true时应停止推送并正常返回
+   */
+  public final boolean cancelled() {
+
+    return signal.poll();
+  }
+
+  public final void cancel() {
+
+    signal.cancel();
+  }
+
+  /**
+   * 取消状态，在一条流水线的各级{@link Sink}之间共享或继承
+   */
+  static final class Signal {
+
+    private final Signal parent;
+
+    /**
+     * 是否有源检查过取消状态
+     */
+    private boolean polled;
+
+    private boolean cancelled;
+
+    Signal(Signal parent) {
+
+      this.parent = parent;
+    }
+
+    static Signal of(Object consumer) {
+
+      if (consumer instanceof Sink) {
+        return ((Sink<?>) consumer).signal;
+      }
+      if (consumer instanceof IntSink) {
+        return ((IntSink) consumer).signal;
+      }
+      return null;
+    }
+
+    boolean poll() {
+
+      polled = true;
+      return cancelled || parent != null && parent.poll();
+    }
+
+    boolean isCancelled() {
+
+      return cancelled || parent != null && parent.isCancelled();
+    }
+
+    void cancel() {
+
+      cancelled = true;
+      if (!polled) {
+        ZeroFlow.stop();
+      }
+    }
+
+  }
+
+}
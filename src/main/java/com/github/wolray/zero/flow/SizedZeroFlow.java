@@ -111,6 +111,18 @@ public interface SizedZeroFlow<T> extends ItrZeroFlow<T> {
   }
 
 
+  /**
+   * 按下标区间切分的数据并行，每个叶子任务在紧凑的循环中顺序处理不超过leafSize个元素，
+   * leafSize小于等于0时按{@link Async#batchSize(int)}估算。 不支持随机访问的容器会先复制为{@link ArrayListZeroFlow}
+   *
+   * @see Async#joinRange(int, int, IntZeroFlow.IntIntConsumer)
+   */
+  @Override
+  default ZeroFlow<T> parallel(Async async, int leafSize) {
+
+    return toList().parallel(async, leafSize);
+  }
+
   @Override
   default ItrZeroFlow<T> take(int n) {
 
@@ -1,25 +1,27 @@
 package com.github.wolray.zero.flow;
 
+import com.github.wolray.zero.flow.IntZeroFlow.IntIntConsumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
+ * 字符串切分。底层只输出每段的[start, end)下标，不复制原字符串，{@link #split(String)}等方法在此之上按需创建子串
+ *
  * @author wolray
  */
 public interface Splitter {
 
   static Splitter of(Pattern sep) {
 
-    return (s, limit) -> c -> {
-      char[]  chars   = s.toCharArray();
+    return (s, limit, c) -> {
       Matcher matcher = sep.matcher(s);
       int     left    = limit, beg = 0;
       for (; left > 0 && matcher.find(); left--) {
-        c.accept(substring(chars, beg, matcher.start()));
+        c.accept(beg, matcher.start());
         beg = matcher.end();
       }
       if (left > 0) {
-        c.accept(substring(chars, beg, chars.length));
+        c.accept(beg, s.length());
       }
     };
   }
@@ -29,43 +31,79 @@ public interface Splitter {
     return start < end ? new String(chars, start, end - start) : "";
   }
 
+  static String substring(CharSequence s, int start, int end) {
+
+    return start < end ? s.subSequence(start, end).toString() : "";
+  }
+
   static Splitter of(String literal) {
 
     return literal.length() == 1 ? of(literal.charAt(0)) :
-           literal.isEmpty() ? ofEmpty() : (s, limit) -> c -> {
-             char[] chars = s.toCharArray();
-             int    left  = limit, beg = 0, len = literal.length(), index;
-             for (; left > 0 && (index = s.indexOf(literal, beg)) > 0; left--) {
-               c.accept(substring(chars, beg, index));
+           literal.isEmpty() ? ofEmpty() : (s, limit, c) -> {
+             int left = limit, beg = 0, len = literal.length(), index;
+             for (; left > 0 && (index = indexOf(s, literal, beg)) >= 0; left--) {
+               c.accept(beg, index);
                beg = index + len;
              }
              if (left > 0) {
-               c.accept(substring(chars, beg, chars.length));
+               c.accept(beg, s.length());
              }
            };
   }
 
   static Splitter of(char sep) {
 
-    return (s, limit) -> c -> {
-      char[] chars = s.toCharArray();
-      int    len   = chars.length, last = 0, left = limit;
-      for (int i = 0; i < len && left > 0; i++) {
-        if (chars[i] == sep) {
-          c.accept(substring(chars, last, i));
+    return (s, limit, c) -> {
+      int len = s.length(), last = 0, left = limit;
+      if (s instanceof String) {
+        //String.indexOf有向量化的实现
+        String str = (String) s;
+        for (int i; left > 0 && (i = str.indexOf(sep, last)) >= 0; left--) {
+          c.accept(last, i);
           last = i + 1;
-          left--;
+        }
+      } else {
+        for (int i = 0; i < len && left > 0; i++) {
+          if (s.charAt(i) == sep) {
+            c.accept(last, i);
+            last = i + 1;
+            left--;
+          }
         }
       }
       if (left > 0) {
-        c.accept(substring(chars, last, len));
+        c.accept(last, len);
       }
     };
   }
 
   static Splitter ofEmpty() {
 
-    return (s, limit) -> ZeroFlow.unit(s);
+    return (s, limit, c) -> {
+      if (limit > 0) {
+        c.accept(0, s.length());
+      }
+    };
+  }
+
+  static int indexOf(CharSequence s, String literal, int from) {
+
+    if (s instanceof String) {
+      return ((String) s).indexOf(literal, from);
+    }
+    char first = literal.charAt(0);
+    for (int i = from, max = s.length() - literal.length(); i <= max; i++) {
+      if (s.charAt(i) == first) {
+        int j = 1;
+        while (j < literal.length() && s.charAt(i + j) == literal.charAt(j)) {
+          j++;
+        }
+        if (j == literal.length()) {
+          return i;
+        }
+      }
+    }
+    return -1;
   }
 
   default ZeroFlow<String> split(String s) {
@@ -73,6 +111,49 @@ public interface Splitter {
     return split(s, Integer.MAX_VALUE);
   }
 
-  ZeroFlow<String> split(String s, int limit);
+  default ZeroFlow<String> split(String s, int limit) {
+
+    return c -> splitOffsets(s, limit, (start, end) -> c.accept(substring(s, start, end)));
+  }
+
+  /**
+   * 把每一段解析为int，不创建子串
+   */
+  default IntZeroFlow splitToInt(CharSequence s) {
+
+    return c -> splitOffsets(s, (start, end) -> c.accept(Parsers.parseInt(s, start, end)));
+  }
+
+  default LongZeroFlow splitToLong(CharSequence s) {
+
+    return c -> splitOffsets(s, (start, end) -> c.accept(Parsers.parseLong(s, start, end)));
+  }
+
+  default DoubleZeroFlow splitToDouble(CharSequence s) {
+
+    return c -> splitOffsets(s, (start, end) -> c.accept(Parsers.parseDouble(s, start, end)));
+  }
+
+  default void splitOffsets(CharSequence s, IntIntConsumer consumer) {
+
+    splitOffsets(s, Integer.MAX_VALUE, consumer);
+  }
+
+  /**
+   * 直接在原字符序列上切分，按顺序输出每段的[start, end)，最多输出limit段
+   */
+  void splitOffsets(CharSequence s, int limit, IntIntConsumer consumer);
+
+  /**
+   * 定长切分，按顺序把各段写入复用的数组，最多写满数组，多余的部分丢弃
+   *
+   * @return 写入的段数
+   */
+  default int splitInto(CharSequence s, String[] reuse) {
+
+    int[] n = {0};
+    splitOffsets(s, reuse.length, (start, end) -> reuse[n[0]++] = substring(s, start, end));
+    return n[0];
+  }
 
 }
@@ -15,7 +15,10 @@ public interface Transducer<T, V, E> {
 
   static <T, V, E> Transducer<T, V, E> of(Collector<T, V, E> collector) {
 
-    return of(Reducer.of(collector.supplier(), collector.accumulator()), collector.finisher());
+    return of(
+        Reducer.of(collector.supplier(), collector.accumulator(), collector.combiner(), null),
+        collector.finisher()
+    );
   }
 
   static <T, V, E> Transducer<T, V, E> of(Reducer<T, V> reducer, Function<V, E> transformer) {
@@ -47,6 +50,12 @@ public interface Transducer<T, V, E> {
       } else {
         m.set(t);
       }
+    }, (m1, m2) -> {
+      if (m1.isSet && m2.isSet) {
+        m1.it = binaryOperator.apply(m1.it, m2.it);
+        return m1;
+      }
+      return m1.isSet ? m1 : m2;
     }, Mutable::get);
   }
 
@@ -57,6 +66,13 @@ public interface Transducer<T, V, E> {
     return of(Reducer.of(supplier, accumulator), transformer);
   }
 
+  static <T, V, E> Transducer<T, V, E> of(
+      Supplier<V> supplier, BiConsumer<V, T> accumulator, BinaryOperator<V> combiner, Function<V, E> transformer
+  ) {
+
+    return of(Reducer.of(supplier, accumulator, combiner, null), transformer);
+  }
+
   /**
    * map/reduce理论中的reduce收束/归约/归纳器
    */
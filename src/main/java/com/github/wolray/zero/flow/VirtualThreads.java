@@ -0,0 +1,59 @@
+package com.github.wolray.zero.flow;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程的支持。 <br/> 基线是Java 8，所以只在类加载时反射查找一次{@code Thread.ofVirtual().factory()}，
+ * 运行在JDK 21+上时每个任务一个虚拟线程，否则退化为守护线程的缓存线程池
+ *
+ * @author wolray
+ */
+final class VirtualThreads {
+
+  /**
+   * 虚拟线程工厂，运行时不支持时为null
+   */
+  static final ThreadFactory FACTORY = lookup();
+
+  static final Async ASYNC = FACTORY != null ? Async.of(FACTORY) : Async.of(Executors.newCachedThreadPool(r -> {
+    Thread thread = new Thread(r);
+    thread.setDaemon(true);
+    return thread;
+  }));
+
+  private VirtualThreads() {
+
+  }
+
+  static boolean isSupported() {
+
+    return FACTORY != null;
+  }
+
+  /**
+   * 不支持时返回守护的平台线程
+   */
+  static Thread newThread(Runnable runnable) {
+
+    if (FACTORY != null) {
+      return FACTORY.newThread(runnable);
+    }
+    Thread thread = new Thread(runnable);
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  private static ThreadFactory lookup() {
+
+    try {
+      Method ofVirtual = Thread.class.getMethod("ofVirtual");
+      Method factory   = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+      return (ThreadFactory) factory.invoke(ofVirtual.invoke(null));
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
+  }
+
+}
@@ -7,8 +7,13 @@ import com.github.wolray.zero.flow.pair.IntPair;
 import com.github.wolray.zero.flow.pair.LongPair;
 import com.github.wolray.zero.flow.pair.Pair;
 import com.github.wolray.zero.flow.pair.PairZeroFlow;
+import com.github.wolray.zero.flow.primitive.IntObjectHashMap;
 import com.github.wolray.zero.flow.triple.TripleConsumer;
 import com.github.wolray.zero.flow.triple.TripleZeroFlow;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -23,6 +28,7 @@ import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
@@ -73,9 +79,10 @@ public interface ZeroFlow<T> extends BaseZeroFlow<Consumer<T>> {
   static <T> ZeroFlow<T> gen(T seed, UnaryOperator<T> operator) {
 
     return c -> {
-      T t = seed;
+      Sink.Signal signal = Sink.Signal.of(c);
+      T           t      = seed;
       c.accept(t);
-      while (true) {
+      while (signal == null || !signal.poll()) {
         c.accept(t = operator.apply(t));
       }
     };
@@ -84,10 +91,11 @@ public interface ZeroFlow<T> extends BaseZeroFlow<Consumer<T>> {
   static <T> ZeroFlow<T> gen(T seed1, T seed2, BinaryOperator<T> operator) {
 
     return c -> {
-      T t1 = seed1, t2 = seed2;
+      Sink.Signal signal = Sink.Signal.of(c);
+      T           t1     = seed1, t2 = seed2;
       c.accept(t1);
       c.accept(t2);
-      while (true) {
+      while (signal == null || !signal.poll()) {
         c.accept(t2 = operator.apply(t1, t1 = t2));
       }
     };
@@ -266,10 +274,15 @@ public interface ZeroFlow<T> extends BaseZeroFlow<Consumer<T>> {
   default Optional<T> find(Predicate<T> predicate) {
 
     Mutable<T> m = new Mutable<>(null);
-    consumeTillStop(t -> {
-      if (predicate.test(t)) {
-        m.set(t);
-        stop();
+    consumeTillStop(new Sink<T>() {
+
+      @Override
+      protected void next(T t) {
+
+        if (predicate.test(t)) {
+          m.set(t);
+          cancel();
+        }
       }
     });
     return m.toOptional();
@@ -320,6 +333,25 @@ public interface ZeroFlow<T> extends BaseZeroFlow<Consumer<T>> {
     };
   }
 
+  /**
+   * 在单独的线程中生产，按需拉取，不会先把整个流缓存下来，可以用于无限的流
+   *
+   * @see PullIterator
+   */
+  default Iterator<T> iterator() {
+
+    return iterator(16);
+  }
+
+  /**
+   * @param buffer
+   *     生产者最多领先的元素个数
+   */
+  default PullIterator<T> iterator(int buffer) {
+
+    return new PullIterator<>(this, buffer);
+  }
+
   default ItrZeroFlow<T> asIterable() {
 
     return toBatched();
@@ -367,9 +399,32 @@ public interface ZeroFlow<T> extends BaseZeroFlow<Consumer<T>> {
     return transducer.transformer().apply(reduce(transducer.reducer()));
   }
 
+  /**
+   * 数组源（{@link BatchedZeroFlow}、{@link ArrayListZeroFlow}）按块填充，每块只经过一次回调，其它源逐个填充
+   */
+  @SuppressWarnings("unchecked")
   default ZeroFlow<ArrayListZeroFlow<T>> chunked(int size) {
 
-    return chunked(size, Reducer.toList(size));
+    if (!(this instanceof BlockSource)) {
+      return chunked(size, Reducer.toList(size));
+    }
+    if (size <= 0) {
+      throw new IllegalArgumentException("non-positive size");
+    }
+    return c -> {
+      Mutable<ArrayListZeroFlow<T>> m = new Mutable<>(new ArrayListZeroFlow<>(size));
+      consumeBatches((block, offset, length) -> {
+        ArrayListZeroFlow<T> list = m.it;
+        for (int i = offset, end = offset + length; i < end; i++) {
+          if (list.size() == size) {
+            c.accept(list);
+            list = m.it = new ArrayListZeroFlow<>(size);
+          }
+          list.add((T) block[i]);
+        }
+      });
+      c.accept(m.it);
+    };
   }
 
   default <V> ZeroFlow<V> chunked(int size, Reducer<T, V> reducer) {
@@ -410,13 +465,14 @@ public interface ZeroFlow<T> extends BaseZeroFlow<Consumer<T>> {
    */
   default <E> ZeroFlow<E> map(Function<T, E> function) {
 
-    return c -> consume(t -> c.accept(function.apply(t)));
+    return c -> consume(Sink.relay(c, t -> c.accept(function.apply(t))));
   }
 
   default ZeroFlow<T> circle() {
 
     return c -> {
-      while (true) {
+      Sink.Signal signal = Sink.Signal.of(c);
+      while (signal == null || !signal.poll()) {
         consume(c);
       }
     };
@@ -432,6 +488,27 @@ public interface ZeroFlow<T> extends BaseZeroFlow<Consumer<T>> {
     return 10;
   }
 
+  /**
+   * 按块消费，持有连续数组的源（{@link BatchedZeroFlow}、{@link ArrayListZeroFlow}）直接按块交出，
+   * 其它源先攒满256个元素再交出一块，因此会提前拉取元素，只适合本来就要消费全部元素的终端操作。
+   * 块是借出的只读视图，可能就是源的内部数组，不能修改，回调返回后也不能再持有
+   */
+  default void consumeBatches(BatchConsumer<T> consumer) {
+
+    Object[] block = new Object[256];
+    int[]    n     = {0};
+    consume(t -> {
+      block[n[0]++] = t;
+      if (n[0] == block.length) {
+        consumer.accept(block, 0, n[0]);
+        n[0] = 0;
+      }
+    });
+    if (n[0] > 0) {
+      consumer.accept(block, 0, n[0]);
+    }
+  }
+
   default void consumeIndexedTillStop(IndexObjConsumer<T> consumer) {
 
     int[] a = {0};
@@ -576,11 +653,11 @@ public interface ZeroFlow<T> extends BaseZeroFlow<Consumer<T>> {
 
   default ZeroFlow<T> filter(Predicate<T> predicate) {
 
-    return predicate == null ? this : c -> consume(t -> {
+    return predicate == null ? this : c -> consume(Sink.relay(c, t -> {
       if (predicate.test(t)) {
         c.accept(t);
       }
-    });
+    }));
   }
 
   default ZeroFlow<T> filterIn(Map<T, ?> map) {
@@ -646,9 +723,14 @@ public interface ZeroFlow<T> extends BaseZeroFlow<Consumer<T>> {
   default T first() {
 
     Mutable<T> m = new Mutable<>(null);
-    consumeTillStop(t -> {
-      m.it = t;
-      stop();
+    consumeTillStop(new Sink<T>() {
+
+      @Override
+      protected void next(T t) {
+
+        m.it = t;
+        cancel();
+      }
     });
     return m.it;
   }
@@ -665,7 +747,7 @@ public interface ZeroFlow<T> extends BaseZeroFlow<Consumer<T>> {
 
   default <E> ZeroFlow<E> flatMap(Function<T, ZeroFlow<E>> function) {
 
-    return c -> consume(t -> function.apply(t).consume(c));
+    return c -> consume(Sink.relay(c, t -> function.apply(t).consume(c)));
   }
 
   default <E> ZeroFlow<E> flatOptional(Function<T, Optional<E>> function) {
@@ -694,6 +776,16 @@ public interface ZeroFlow<T> extends BaseZeroFlow<Consumer<T>> {
     return m.get();
   }
 
+  /**
+   * 后续的map/filter/mapNotNull/onEach/filterInstance会按流水线的形状融合成一个循环体执行
+   *
+   * @see FusedZeroFlow
+   */
+  default FusedZeroFlow<T> fuse() {
+
+    return FusedZeroFlow.of(this);
+  }
+
   default <K> MapZeroFlow<K, ArrayListZeroFlow<T>> groupBy(Function<T, K> toKey) {
 
     return groupBy(toKey, Reducer.toList());
@@ -719,6 +811,42 @@ public interface ZeroFlow<T> extends BaseZeroFlow<Consumer<T>> {
     return groupBy(toKey, Reducer.mapping(toValue));
   }
 
+  default IntObjectHashMap<ArrayListZeroFlow<T>> groupByInt(ToIntFunction<T> toKey) {
+
+    return groupByInt(toKey, Reducer.toList());
+  }
+
+  /**
+   * 按int键分组，键不装箱
+   */
+  default <V> IntObjectHashMap<V> groupByInt(ToIntFunction<T> toKey, Reducer<T, V> reducer) {
+
+    return reduce(Reducer.groupByInt(toKey, reducer));
+  }
+
+  default <V, E> IntObjectHashMap<E> groupByInt(ToIntFunction<T> toKey, Transducer<T, V, E> transducer) {
+
+    return reduce(Reducer.groupByInt(toKey, transducer));
+  }
+
+  /**
+   * 标记一个阶段，统计从上一个标记点（或源）到这里的输入输出、自身和下游的耗时以及短路次数，
+   * 上报到{@link Instrumentation#registry()}。埋点关闭时直接返回本身
+   */
+  default ZeroFlow<T> instrument(String stage) {
+
+    return Instrumentation.wrap(stage, this);
+  }
+
+  /**
+   * 整条流水线的埋点，源和之后的每个常用操作（map/filter/mapNotNull/onEach/flatMap/take/takeWhile）都是一个阶段，
+   * 阶段名为{@code 流水线名/序号:操作名}。埋点关闭时直接返回本身
+   */
+  default ZeroFlow<T> instrumentAll(String pipeline) {
+
+    return Instrumentation.isEnabled() ? new InstrumentedZeroFlow<>(pipeline, 0, "source", this) : this;
+  }
+
   default T last() {
 
     return reduce(new Mutable<T>(null), Mutable::set).it;
@@ -796,6 +924,37 @@ public interface ZeroFlow<T> extends BaseZeroFlow<Consumer<T>> {
     return c -> consumeIndexed((i, t) -> c.accept(function.apply(i, t)));
   }
 
+  /**
+   * 并发执行function，结果按原顺序输出到下游。 <br/> 同时执行的任务最多maxInFlight个，达到上限时阻塞生产者，因此无限流也只占用有限内存
+   *
+   * @param maxInFlight
+   *     同时在执行或等待输出的最大任务数
+   */
+  default <E> ZeroFlow<E> mapParallel(Async async, int maxInFlight, Function<T, E> function) {
+
+    if (maxInFlight <= 0) {
+      throw new IllegalArgumentException("non-positive maxInFlight");
+    }
+    return c -> {
+      ReorderBuffer<E> buffer = new ReorderBuffer<>(maxInFlight);
+      consume(t -> {
+        buffer.drain(c);
+        while (buffer.isFull()) {
+          buffer.awaitHead(c);
+        }
+        int slot = buffer.next();
+        async.submit(() -> {
+          try {
+            buffer.complete(slot, function.apply(t));
+          } catch (Throwable e) {
+            buffer.fail(slot, e);
+          }
+        });
+      });
+      buffer.awaitAll(c);
+    };
+  }
+
   default <E> ZeroFlow<E> mapMaybe(Function<T, E> function) {
 
     return c -> consume(t -> {
@@ -897,11 +1056,21 @@ public interface ZeroFlow<T> extends BaseZeroFlow<Consumer<T>> {
     });
   }
 
+  default DoubleZeroFlow mapToDouble(ToDoubleFunction<T> function) {
+
+    return c -> consume(t -> c.accept(function.applyAsDouble(t)));
+  }
+
   default IntZeroFlow mapToInt(ToIntFunction<T> function) {
 
     return c -> consume(t -> c.accept(function.applyAsInt(t)));
   }
 
+  default LongZeroFlow mapToLong(ToLongFunction<T> function) {
+
+    return c -> consume(t -> c.accept(function.applyAsLong(t)));
+  }
+
   default T max(Comparator<T> comparator) {
 
     return reduce(Reducer.max(comparator));
@@ -929,7 +1098,7 @@ public interface ZeroFlow<T> extends BaseZeroFlow<Consumer<T>> {
 
   default ZeroFlow<T> onEach(Consumer<T> consumer) {
 
-    return c -> consume(consumer.andThen(c));
+    return c -> consume(Sink.relay(c, consumer.andThen(c)));
   }
 
   default ZeroFlow<T> onEach(int n, Consumer<T> consumer) {
@@ -980,16 +1149,66 @@ public interface ZeroFlow<T> extends BaseZeroFlow<Consumer<T>> {
     });
   }
 
+  /**
+   * 在公共ForkJoin池中自适应分批并行
+   *
+   * @see #parallel(Async, int)
+   */
   default ZeroFlow<T> parallel() {
 
-    return parallel(Async.common());
+    return parallel(Async.common(), 0);
   }
 
+  /**
+   * 每个元素提交一个任务，适合单个元素耗时较长的场景
+   */
   default ZeroFlow<T> parallel(Async async) {
 
     return c -> async.joinAll(map(t -> () -> c.accept(t)));
   }
 
+  /**
+   * 分批并行，每批元素只提交一个任务，任务数与join的开销都只与批数相关
+   *
+   * @param batchSize
+   *     每批的元素数量，小于等于0时自适应：从1开始逐批翻倍，直到1024
+   */
+  default ZeroFlow<T> parallel(Async async, int batchSize) {
+
+    return c -> async.joinAll(tasks -> Batch.split(this, batchSize, c, tasks::accept));
+  }
+
+  /**
+   * 并行归约，按{@link #parallel(Async, int)}的自适应方式分批。每批从本次调用的池中借一个中间结果，处理完归还，
+   * 中间结果的数量不超过同时运行的任务数。结束后通过{@link Reducer#combiner()}两两并行合并，合并顺序不保证与原顺序一致
+   */
+  default <E> E parallelReduce(Async async, Reducer<T, E> reducer) {
+
+    if (reducer.combiner() == null) {
+      throw new IllegalArgumentException("reducer without combiner");
+    }
+    Supplier<E>      supplier    = reducer.supplier();
+    BiConsumer<E, T> accumulator = reducer.accumulator();
+    Queue<E>         idle        = new ConcurrentLinkedQueue<>();
+    Queue<E>         partials    = new ConcurrentLinkedQueue<>();
+    async.joinAll(tasks -> Batch.<T>split(this, 0, null, b -> tasks.accept(() -> {
+      E e = idle.poll();
+      if (e == null) {
+        e = supplier.get();
+        partials.offer(e);
+      }
+      E acc = e;
+      b.forEach(t -> accumulator.accept(acc, t));
+      idle.offer(acc);
+    })));
+    return ReducerUtil.combineTree(async, reducer, new ArrayList<>(partials));
+  }
+
+  default <E, V> E parallelReduce(Async async, Transducer<T, V, E> transducer) {
+
+    return transducer.transformer().apply(parallelReduce(async, transducer.reducer()));
+  }
+
   default ZeroFlow<T> parallelNoJoin() {
 
     return parallelNoJoin(Async.common());
@@ -1116,15 +1335,19 @@ public interface ZeroFlow<T> extends BaseZeroFlow<Consumer<T>> {
 
   default ZeroFlow<T> take(int n) {
 
-    return n <= 0 ? empty() : c -> {
-      int[] i = {n};
-      consumeTillStop(t -> {
+    return n <= 0 ? empty() : c -> consumeTillStop(new Sink<T>(c) {
+
+      int i = n;
+
+      @Override
+      protected void next(T t) {
+
         c.accept(t);
-        if (--i[0] == 0) {
-          stop();
+        if (--i == 0) {
+          cancel();
         }
-      });
-    };
+      }
+    });
   }
 
   default ZeroFlow<T> takeWhile(BiPredicate<T, T> testPrevCurr) {
@@ -1134,27 +1357,36 @@ public interface ZeroFlow<T> extends BaseZeroFlow<Consumer<T>> {
 
   default <E> ZeroFlow<T> takeWhile(Function<T, E> function, BiPredicate<E, E> testPrevCurr) {
 
-    return c -> {
-      Mutable<E> m = new Mutable<>(null);
-      consumeTillStop(t -> {
+    return c -> consumeTillStop(new Sink<T>(c) {
+
+      E prev;
+
+      @Override
+      protected void next(T t) {
+
         E curr = function.apply(t);
-        if (m.it == null || testPrevCurr.test(m.it, curr)) {
+        if (prev == null || testPrevCurr.test(prev, curr)) {
           c.accept(t);
-          m.it = curr;
+          prev = curr;
         } else {
-          stop();
+          cancel();
         }
-      });
-    };
+      }
+    });
   }
 
   default ZeroFlow<T> takeWhile(Predicate<T> predicate) {
 
-    return c -> consumeTillStop(t -> {
-      if (predicate.test(t)) {
-        c.accept(t);
-      } else {
-        stop();
+    return c -> consumeTillStop(new Sink<T>(c) {
+
+      @Override
+      protected void next(T t) {
+
+        if (predicate.test(t)) {
+          c.accept(t);
+        } else {
+          cancel();
+        }
       }
     });
   }
@@ -1171,15 +1403,20 @@ public interface ZeroFlow<T> extends BaseZeroFlow<Consumer<T>> {
 
   default ZeroFlow<T> timeLimit(long millis) {
 
-    return millis * 1000000 <= 0 ? this : c -> {
-      long end = System.nanoTime() + millis;
-      consumeTillStop(t -> {
+    return millis * 1000000 <= 0 ? this : c -> consumeTillStop(new Sink<T>(c) {
+
+      final long end = System.nanoTime() + millis;
+
+      @Override
+      protected void next(T t) {
+
         if (System.nanoTime() > end) {
-          stop();
+          cancel();
+        } else {
+          c.accept(t);
         }
-        c.accept(t);
-      });
-    };
+      }
+    });
   }
 
   default T[] toObjArray(IntFunction<T[]> initializer) {
@@ -1195,27 +1432,51 @@ public interface ZeroFlow<T> extends BaseZeroFlow<Consumer<T>> {
     return toBatched();
   }
 
+  @SuppressWarnings("unchecked")
   default int[] toIntArray(ToIntFunction<T> function) {
 
     SizedZeroFlow<T> ts = cache();
     int[]            a  = new int[ts.size()];
-    ts.consumeIndexed((i, t) -> a[i] = function.applyAsInt(t));
+    int[]            p  = {0};
+    ts.consumeBatches((block, offset, length) -> {
+      int j = p[0];
+      for (int i = offset, end = offset + length; i < end; i++) {
+        a[j++] = function.applyAsInt((T) block[i]);
+      }
+      p[0] = j;
+    });
     return a;
   }
 
+  @SuppressWarnings("unchecked")
   default double[] toDoubleArray(ToDoubleFunction<T> function) {
 
     SizedZeroFlow<T> ts = cache();
     double[]         a  = new double[ts.size()];
-    ts.consumeIndexed((i, t) -> a[i] = function.applyAsDouble(t));
+    int[]            p  = {0};
+    ts.consumeBatches((block, offset, length) -> {
+      int j = p[0];
+      for (int i = offset, end = offset + length; i < end; i++) {
+        a[j++] = function.applyAsDouble((T) block[i]);
+      }
+      p[0] = j;
+    });
     return a;
   }
 
+  @SuppressWarnings("unchecked")
   default long[] toLongArray(ToLongFunction<T> function) {
 
     SizedZeroFlow<T> ts = cache();
     long[]           a  = new long[ts.size()];
-    ts.consumeIndexed((i, t) -> a[i] = function.applyAsLong(t));
+    int[]            p  = {0};
+    ts.consumeBatches((block, offset, length) -> {
+      int j = p[0];
+      for (int i = offset, end = offset + length; i < end; i++) {
+        a[j++] = function.applyAsLong((T) block[i]);
+      }
+      p[0] = j;
+    });
     return a;
   }
 
@@ -1227,6 +1488,36 @@ public interface ZeroFlow<T> extends BaseZeroFlow<Consumer<T>> {
     return a;
   }
 
+  /**
+   * 每个元素按{@link String#valueOf(Object)}写一行，写完关闭writer。数组源按块写，其它源逐个写
+   */
+  default void writeLines(IOChain<Writer> writer) {
+
+    IOChain.ofWriter(writer).use(w -> {
+      if (!(this instanceof BlockSource)) {
+        consume(t -> {
+          try {
+            w.write(String.valueOf(t));
+            w.newLine();
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+        return;
+      }
+      consumeBatches((block, offset, length) -> {
+        try {
+          for (int i = offset, end = offset + length; i < end; i++) {
+            w.write(String.valueOf(block[i]));
+            w.newLine();
+          }
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    });
+  }
+
   default ConcurrentQueueZeroFlow<T> toConcurrentQueue() {
 
     return reduce(new ConcurrentQueueZeroFlow<>(), ConcurrentQueueZeroFlow::add);
@@ -1503,6 +1794,16 @@ public interface ZeroFlow<T> extends BaseZeroFlow<Consumer<T>> {
     consumeTillStop(t -> consumer.accept(t, ItrUtil.pop(iterator)));
   }
 
+  /**
+   * block[offset, offset + length)中的元素都是T。块是借出的只读视图，可能是源的内部数组，不能修改，
+   * 回调返回后可能被复用，不能再持有
+   */
+  interface BatchConsumer<T> {
+
+    void accept(Object[] block, int offset, int length);
+
+  }
+
   interface IntObjToInt<T> {
 
     int apply(int acc, T t);
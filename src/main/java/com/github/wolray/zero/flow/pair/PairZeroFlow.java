@@ -1,9 +1,12 @@
 package com.github.wolray.zero.flow.pair;
 
 import com.github.wolray.zero.flow.BaseZeroFlow;
+import com.github.wolray.zero.flow.IntZeroFlow.ObjIntIntConsumer;
 import com.github.wolray.zero.flow.ItrZeroFlow;
+import com.github.wolray.zero.flow.KeyCache;
 import com.github.wolray.zero.flow.MapZeroFlow;
 import com.github.wolray.zero.flow.Mutable;
+import com.github.wolray.zero.flow.Parsers;
 import com.github.wolray.zero.flow.ZeroFlow;
 import com.github.wolray.zero.flow.triple.TripleConsumer;
 import com.github.wolray.zero.flow.triple.TripleFunction;
@@ -46,7 +49,45 @@ public interface PairZeroFlow<K, V> extends BaseZeroFlow<BiConsumer<K, V>> {
    */
   static PairZeroFlow<String, String> parseMap(String s, char entrySep, char kvSep) {
 
-    return parseMap(s.toCharArray(), entrySep, kvSep);
+    return c -> parseMap(s, entrySep, kvSep, null, (k, start, end) -> c.accept(k, s.substring(start, end)));
+  }
+
+  /**
+   * 键经过{@link KeyCache}驻留，已知的键不再创建字符串
+   */
+  static PairZeroFlow<String, String> parseMap(CharSequence s, char entrySep, char kvSep, KeyCache keys) {
+
+    return c -> parseMap(s, entrySep, kvSep, keys, (k, start, end) -> c.accept(k, Splitter.substring(s, start, end)));
+  }
+
+  /**
+   * 直接在原字符序列上解析，值只以[start, end)下标给出，可配合{@link Parsers}解析数值而不创建字符串。 没有键值分隔符的条目会被忽略
+   *
+   * @param keys
+   *     键的驻留表，为null时每个键都新建字符串
+   * @param consumer
+   *     依次接收键和值的区间
+   */
+  static void parseMap(CharSequence s, char entrySep, char kvSep, KeyCache keys, ObjIntIntConsumer<String> consumer) {
+
+    int    len  = s.length(), last = 0;
+    String prev = null;
+    for (int i = 0; i < len; i++) {
+      char ch = s.charAt(i);
+      if (ch == entrySep) {
+        if (prev != null) {
+          consumer.accept(prev, last, i);
+          prev = null;
+        }
+        last = i + 1;
+      } else if (prev == null && ch == kvSep) {
+        prev = keys != null ? keys.get(s, last, i) : Splitter.substring(s, last, i);
+        last = i + 1;
+      }
+    }
+    if (prev != null) {
+      consumer.accept(prev, last, len);
+    }
   }
 
   /**
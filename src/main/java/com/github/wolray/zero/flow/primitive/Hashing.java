@@ -0,0 +1,52 @@
+package com.github.wolray.zero.flow.primitive;
+
+/**
+ * 开放寻址表共用的散列与容量计算
+ *
+ * @author wolray
+ */
+final class Hashing {
+
+  /**
+   * 装载因子
+   */
+  static final float LOAD = 0.75f;
+
+  private static final int PHI = 0x9E3779B9;
+
+  private Hashing() {
+
+  }
+
+  static int mix(int key) {
+
+    int h = key * PHI;
+    return h ^ (h >>> 16);
+  }
+
+  static int mix(long key) {
+
+    return mix((int) (key ^ (key >>> 32)));
+  }
+
+  /**
+   * 能容纳expected个元素而不扩容的最小2的幂容量
+   */
+  static int capacityFor(int expected) {
+
+    if (expected < 0) {
+      throw new IllegalArgumentException("negative expected size");
+    }
+    long need = Math.max(4, (long) Math.ceil(expected / LOAD) + 1);
+    if (need > 1 << 30) {
+      throw new IllegalArgumentException("too large: " + expected);
+    }
+    return Integer.highestOneBit((int) need - 1) << 1;
+  }
+
+  static int resizeAt(int capacity) {
+
+    return Math.min(capacity - 1, (int) Math.ceil(capacity * LOAD));
+  }
+
+}
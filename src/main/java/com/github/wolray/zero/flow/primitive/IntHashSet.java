@@ -0,0 +1,222 @@
+package com.github.wolray.zero.flow.primitive;
+
+import com.github.wolray.zero.flow.IntZeroFlow;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * 以int为元素的开放寻址哈希集合，线性探测，不装箱。 <br/> 本身也是{@link IntZeroFlow}，遍历顺序不保证
+ *
+ * @author wolray
+ */
+public class IntHashSet implements IntZeroFlow {
+
+  /**
+   * 0作为空槽标记，集合中的0单独记录
+   */
+  private int[] keys;
+
+  private boolean hasZero;
+
+  private int size;
+
+  private int mask;
+
+  private int resizeAt;
+
+  public IntHashSet() {
+
+    this(16);
+  }
+
+  public IntHashSet(int expected) {
+
+    allocate(Hashing.capacityFor(expected));
+  }
+
+  public static IntHashSet of(int... ts) {
+
+    IntHashSet set = new IntHashSet(ts.length);
+    for (int t : ts) {
+      set.add(t);
+    }
+    return set;
+  }
+
+  private void allocate(int capacity) {
+
+    keys     = new int[capacity];
+    mask     = capacity - 1;
+    resizeAt = Hashing.resizeAt(capacity);
+  }
+
+  /**
+   * @return 集合中原本没有该元素时返回true
+   */
+  public boolean add(int key) {
+
+    if (key == 0) {
+      if (hasZero) {
+        return false;
+      }
+      hasZero = true;
+      size++;
+      return true;
+    }
+    int[] keys = this.keys;
+    int   i    = Hashing.mix(key) & mask;
+    for (int k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+      if (k == key) {
+        return false;
+      }
+    }
+    keys[i] = key;
+    if (++size >= resizeAt) {
+      rehash(keys.length << 1);
+    }
+    return true;
+  }
+
+  public boolean contains(int key) {
+
+    if (key == 0) {
+      return hasZero;
+    }
+    int[] keys = this.keys;
+    for (int i = Hashing.mix(key) & mask; ; i = (i + 1) & mask) {
+      int k = keys[i];
+      if (k == key) {
+        return true;
+      }
+      if (k == 0) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * @return 集合中原本有该元素时返回true
+   */
+  public boolean remove(int key) {
+
+    if (key == 0) {
+      if (!hasZero) {
+        return false;
+      }
+      hasZero = false;
+      size--;
+      return true;
+    }
+    int[] keys = this.keys;
+    for (int i = Hashing.mix(key) & mask; ; i = (i + 1) & mask) {
+      int k = keys[i];
+      if (k == key) {
+        shiftKeys(i);
+        size--;
+        return true;
+      }
+      if (k == 0) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * 删除后把同一探测链上后面的元素前移，保证查找不因空槽提前结束
+   */
+  private void shiftKeys(int pos) {
+
+    int[] keys = this.keys;
+    while (true) {
+      int last = pos;
+      int k;
+      while (true) {
+        pos = (pos + 1) & mask;
+        if ((k = keys[pos]) == 0) {
+          keys[last] = 0;
+          return;
+        }
+        int slot = Hashing.mix(k) & mask;
+        if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+          break;
+        }
+      }
+      keys[last] = k;
+    }
+  }
+
+  private void rehash(int capacity) {
+
+    int[] old = keys;
+    allocate(capacity);
+    int[] keys = this.keys;
+    for (int k : old) {
+      if (k != 0) {
+        int i = Hashing.mix(k) & mask;
+        while (keys[i] != 0) {
+          i = (i + 1) & mask;
+        }
+        keys[i] = k;
+      }
+    }
+  }
+
+  public int size() {
+
+    return size;
+  }
+
+  public boolean isEmpty() {
+
+    return size == 0;
+  }
+
+  public void clear() {
+
+    Arrays.fill(keys, 0);
+    hasZero = false;
+    size    = 0;
+  }
+
+  @Override
+  public void consume(IntConsumer consumer) {
+
+    if (hasZero) {
+      consumer.accept(0);
+    }
+    for (int k : keys) {
+      if (k != 0) {
+        consumer.accept(k);
+      }
+    }
+  }
+
+  @Override
+  public int count() {
+
+    return size;
+  }
+
+  @Override
+  public int[] toArray() {
+
+    int[] a = new int[size];
+    int   i = 0;
+    if (hasZero) {
+      a[i++] = 0;
+    }
+    for (int k : keys) {
+      if (k != 0) {
+        a[i++] = k;
+      }
+    }
+    return a;
+  }
+
+  @Override
+  public String toString() {
+
+    return Arrays.toString(toArray());
+  }
+
+}
@@ -0,0 +1,279 @@
+package com.github.wolray.zero.flow.primitive;
+
+import com.github.wolray.zero.flow.IntZeroFlow;
+import java.util.Arrays;
+import java.util.StringJoiner;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * 键和值都是int的开放寻址哈希表，线性探测，不装箱。不存在的键按0处理，适合计数和求和。遍历顺序不保证
+ *
+ * @author wolray
+ */
+public class IntIntHashMap {
+
+  /**
+   * 0作为空槽标记，键为0的值单独记录
+   */
+  private int[] keys;
+
+  private int[] values;
+
+  private boolean hasZero;
+
+  private int zeroValue;
+
+  private int size;
+
+  private int mask;
+
+  private int resizeAt;
+
+  public IntIntHashMap() {
+
+    this(16);
+  }
+
+  public IntIntHashMap(int expected) {
+
+    allocate(Hashing.capacityFor(expected));
+  }
+
+  private void allocate(int capacity) {
+
+    keys     = new int[capacity];
+    values   = new int[capacity];
+    mask     = capacity - 1;
+    resizeAt = Hashing.resizeAt(capacity);
+  }
+
+  /**
+   * @return 找到时返回槽位，否则返回~插入位置
+   */
+  private int find(int key) {
+
+    int[] keys = this.keys;
+    for (int i = Hashing.mix(key) & mask; ; i = (i + 1) & mask) {
+      int k = keys[i];
+      if (k == key) {
+        return i;
+      }
+      if (k == 0) {
+        return ~i;
+      }
+    }
+  }
+
+  public boolean containsKey(int key) {
+
+    return key == 0 ? hasZero : find(key) >= 0;
+  }
+
+  public int get(int key) {
+
+    return getOrDefault(key, 0);
+  }
+
+  public int getOrDefault(int key, int defaultValue) {
+
+    if (key == 0) {
+      return hasZero ? zeroValue : defaultValue;
+    }
+    int i = find(key);
+    return i >= 0 ? values[i] : defaultValue;
+  }
+
+  /**
+   * @return 原来的值，没有时返回0
+   */
+  public int put(int key, int value) {
+
+    if (key == 0) {
+      int old = zeroValue;
+      if (!hasZero) {
+        hasZero = true;
+        size++;
+      }
+      zeroValue = value;
+      return old;
+    }
+    int i = find(key);
+    if (i >= 0) {
+      int old = values[i];
+      values[i] = value;
+      return old;
+    }
+    insert(~i, key, value);
+    return 0;
+  }
+
+  /**
+   * 把delta累加到键对应的值上，键不存在时视为0
+   *
+   * @return 累加后的值
+   */
+  public int addTo(int key, int delta) {
+
+    if (key == 0) {
+      put(0, zeroValue + delta);
+      return zeroValue;
+    }
+    int i = find(key);
+    if (i >= 0) {
+      return values[i] += delta;
+    }
+    insert(~i, key, delta);
+    return delta;
+  }
+
+  /**
+   * 键已存在时用operator合并新旧值
+   */
+  public int merge(int key, int value, IntBinaryOperator operator) {
+
+    if (key == 0) {
+      put(0, hasZero ? operator.applyAsInt(zeroValue, value) : value);
+      return zeroValue;
+    }
+    int i = find(key);
+    if (i >= 0) {
+      return values[i] = operator.applyAsInt(values[i], value);
+    }
+    insert(~i, key, value);
+    return value;
+  }
+
+  private void insert(int i, int key, int value) {
+
+    keys[i]   = key;
+    values[i] = value;
+    if (++size >= resizeAt) {
+      rehash(keys.length << 1);
+    }
+  }
+
+  /**
+   * @return 被删除的值，没有时返回0
+   */
+  public int remove(int key) {
+
+    if (key == 0) {
+      if (!hasZero) {
+        return 0;
+      }
+      int old = zeroValue;
+      hasZero   = false;
+      zeroValue = 0;
+      size--;
+      return old;
+    }
+    int i = find(key);
+    if (i < 0) {
+      return 0;
+    }
+    int old = values[i];
+    shiftKeys(i);
+    size--;
+    return old;
+  }
+
+  /**
+   * 删除后把同一探测链上后面的元素前移，保证查找不因空槽提前结束
+   */
+  private void shiftKeys(int pos) {
+
+    int[] keys   = this.keys;
+    int[] values = this.values;
+    while (true) {
+      int last = pos;
+      int k;
+      while (true) {
+        pos = (pos + 1) & mask;
+        if ((k = keys[pos]) == 0) {
+          keys[last] = 0;
+          return;
+        }
+        int slot = Hashing.mix(k) & mask;
+        if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+          break;
+        }
+      }
+      keys[last]   = k;
+      values[last] = values[pos];
+    }
+  }
+
+  private void rehash(int capacity) {
+
+    int[] oldKeys   = keys;
+    int[] oldValues = values;
+    allocate(capacity);
+    for (int j = 0; j < oldKeys.length; j++) {
+      int k = oldKeys[j];
+      if (k != 0) {
+        int i = Hashing.mix(k) & mask;
+        while (keys[i] != 0) {
+          i = (i + 1) & mask;
+        }
+        keys[i]   = k;
+        values[i] = oldValues[j];
+      }
+    }
+  }
+
+  public int size() {
+
+    return size;
+  }
+
+  public boolean isEmpty() {
+
+    return size == 0;
+  }
+
+  public void clear() {
+
+    Arrays.fill(keys, 0);
+    hasZero   = false;
+    zeroValue = 0;
+    size      = 0;
+  }
+
+  public void forEach(EntryConsumer consumer) {
+
+    if (hasZero) {
+      consumer.accept(0, zeroValue);
+    }
+    int[] keys = this.keys;
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != 0) {
+        consumer.accept(keys[i], values[i]);
+      }
+    }
+  }
+
+  public IntZeroFlow keys() {
+
+    return c -> forEach((k, v) -> c.accept(k));
+  }
+
+  public IntZeroFlow values() {
+
+    return c -> forEach((k, v) -> c.accept(v));
+  }
+
+  @Override
+  public String toString() {
+
+    StringJoiner joiner = new StringJoiner(", ", "{", "}");
+    forEach((k, v) -> joiner.add(k + "=" + v));
+    return joiner.toString();
+  }
+
+  public interface EntryConsumer {
+
+    void accept(int key, int value);
+
+  }
+
+}
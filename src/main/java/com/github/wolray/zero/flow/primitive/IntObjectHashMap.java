@@ -0,0 +1,306 @@
+package com.github.wolray.zero.flow.primitive;
+
+import com.github.wolray.zero.flow.IntZeroFlow;
+import com.github.wolray.zero.flow.ZeroFlow;
+import java.util.Arrays;
+import java.util.StringJoiner;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * 以int为键的开放寻址哈希表，线性探测，键不装箱。遍历顺序不保证
+ *
+ * @author wolray
+ */
+public class IntObjectHashMap<V> {
+
+  /**
+   * 0作为空槽标记，键为0的值单独记录
+   */
+  private int[] keys;
+
+  private Object[] values;
+
+  private boolean hasZero;
+
+  private V zeroValue;
+
+  private int size;
+
+  private int mask;
+
+  private int resizeAt;
+
+  public IntObjectHashMap() {
+
+    this(16);
+  }
+
+  public IntObjectHashMap(int expected) {
+
+    allocate(Hashing.capacityFor(expected));
+  }
+
+  private void allocate(int capacity) {
+
+    keys     = new int[capacity];
+    values   = new Object[capacity];
+    mask     = capacity - 1;
+    resizeAt = Hashing.resizeAt(capacity);
+  }
+
+  /**
+   * @return 找到时返回槽位，否则返回~插入位置
+   */
+  private int find(int key) {
+
+    int[] keys = this.keys;
+    for (int i = Hashing.mix(key) & mask; ; i = (i + 1) & mask) {
+      int k = keys[i];
+      if (k == key) {
+        return i;
+      }
+      if (k == 0) {
+        return ~i;
+      }
+    }
+  }
+
+  public boolean containsKey(int key) {
+
+    return key == 0 ? hasZero : find(key) >= 0;
+  }
+
+  public V get(int key) {
+
+    return getOrDefault(key, null);
+  }
+
+  @SuppressWarnings("unchecked")
+  public V getOrDefault(int key, V defaultValue) {
+
+    if (key == 0) {
+      return hasZero ? zeroValue : defaultValue;
+    }
+    int i = find(key);
+    return i >= 0 ? (V) values[i] : defaultValue;
+  }
+
+  /**
+   * @return 原来的值，没有时返回null
+   */
+  @SuppressWarnings("unchecked")
+  public V put(int key, V value) {
+
+    if (key == 0) {
+      V old = zeroValue;
+      if (!hasZero) {
+        hasZero = true;
+        size++;
+      }
+      zeroValue = value;
+      return old;
+    }
+    int i = find(key);
+    if (i >= 0) {
+      V old = (V) values[i];
+      values[i] = value;
+      return old;
+    }
+    insert(~i, key, value);
+    return null;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V computeIfAbsent(int key, IntFunction<V> function) {
+
+    if (key == 0) {
+      if (!hasZero) {
+        put(0, function.apply(0));
+      }
+      return zeroValue;
+    }
+    int i = find(key);
+    if (i >= 0) {
+      return (V) values[i];
+    }
+    V v = function.apply(key);
+    insert(~i, key, v);
+    return v;
+  }
+
+  /**
+   * 键已存在时用operator合并新旧值
+   */
+  @SuppressWarnings("unchecked")
+  public V merge(int key, V value, BinaryOperator<V> operator) {
+
+    if (key == 0) {
+      put(0, hasZero ? operator.apply(zeroValue, value) : value);
+      return zeroValue;
+    }
+    int i = find(key);
+    if (i >= 0) {
+      return (V) (values[i] = operator.apply((V) values[i], value));
+    }
+    insert(~i, key, value);
+    return value;
+  }
+
+  private void insert(int i, int key, V value) {
+
+    keys[i]   = key;
+    values[i] = value;
+    if (++size >= resizeAt) {
+      rehash(keys.length << 1);
+    }
+  }
+
+  /**
+   * @return 被删除的值，没有时返回null
+   */
+  @SuppressWarnings("unchecked")
+  public V remove(int key) {
+
+    if (key == 0) {
+      if (!hasZero) {
+        return null;
+      }
+      V old = zeroValue;
+      hasZero   = false;
+      zeroValue = null;
+      size--;
+      return old;
+    }
+    int i = find(key);
+    if (i < 0) {
+      return null;
+    }
+    V old = (V) values[i];
+    shiftKeys(i);
+    size--;
+    return old;
+  }
+
+  /**
+   * 删除后把同一探测链上后面的元素前移，保证查找不因空槽提前结束
+   */
+  private void shiftKeys(int pos) {
+
+    int[]    keys   = this.keys;
+    Object[] values = this.values;
+    while (true) {
+      int last = pos;
+      int k;
+      while (true) {
+        pos = (pos + 1) & mask;
+        if ((k = keys[pos]) == 0) {
+          keys[last]   = 0;
+          values[last] = null;
+          return;
+        }
+        int slot = Hashing.mix(k) & mask;
+        if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+          break;
+        }
+      }
+      keys[last]   = k;
+      values[last] = values[pos];
+    }
+  }
+
+  private void rehash(int capacity) {
+
+    int[]    oldKeys   = keys;
+    Object[] oldValues = values;
+    allocate(capacity);
+    for (int j = 0; j < oldKeys.length; j++) {
+      int k = oldKeys[j];
+      if (k != 0) {
+        int i = Hashing.mix(k) & mask;
+        while (keys[i] != 0) {
+          i = (i + 1) & mask;
+        }
+        keys[i]   = k;
+        values[i] = oldValues[j];
+      }
+    }
+  }
+
+  public int size() {
+
+    return size;
+  }
+
+  public boolean isEmpty() {
+
+    return size == 0;
+  }
+
+  public void clear() {
+
+    Arrays.fill(keys, 0);
+    Arrays.fill(values, null);
+    hasZero   = false;
+    zeroValue = null;
+    size      = 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  public void forEach(EntryConsumer<V> consumer) {
+
+    if (hasZero) {
+      consumer.accept(0, zeroValue);
+    }
+    int[] keys = this.keys;
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != 0) {
+        consumer.accept(keys[i], (V) values[i]);
+      }
+    }
+  }
+
+  /**
+   * 原地替换所有的值
+   */
+  @SuppressWarnings("unchecked")
+  public <E> IntObjectHashMap<E> replaceValue(Function<V, E> function) {
+
+    IntObjectHashMap<Object> map = (IntObjectHashMap<Object>) this;
+    if (hasZero) {
+      map.zeroValue = function.apply(zeroValue);
+    }
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != 0) {
+        values[i] = function.apply((V) values[i]);
+      }
+    }
+    return (IntObjectHashMap<E>) map;
+  }
+
+  public IntZeroFlow keys() {
+
+    return c -> forEach((k, v) -> c.accept(k));
+  }
+
+  public ZeroFlow<V> values() {
+
+    return c -> forEach((k, v) -> c.accept(v));
+  }
+
+  @Override
+  public String toString() {
+
+    StringJoiner joiner = new StringJoiner(", ", "{", "}");
+    forEach((k, v) -> joiner.add(k + "=" + v));
+    return joiner.toString();
+  }
+
+  public interface EntryConsumer<V> {
+
+    void accept(int key, V value);
+
+  }
+
+}
@@ -0,0 +1,279 @@
+package com.github.wolray.zero.flow.primitive;
+
+import com.github.wolray.zero.flow.LongZeroFlow;
+import java.util.Arrays;
+import java.util.StringJoiner;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * 键和值都是long的开放寻址哈希表，线性探测，不装箱。不存在的键按0处理，适合计数和求和。遍历顺序不保证
+ *
+ * @author wolray
+ */
+public class LongLongHashMap {
+
+  /**
+   * 0作为空槽标记，键为0的值单独记录
+   */
+  private long[] keys;
+
+  private long[] values;
+
+  private boolean hasZero;
+
+  private long zeroValue;
+
+  private int size;
+
+  private int mask;
+
+  private int resizeAt;
+
+  public LongLongHashMap() {
+
+    this(16);
+  }
+
+  public LongLongHashMap(int expected) {
+
+    allocate(Hashing.capacityFor(expected));
+  }
+
+  private void allocate(int capacity) {
+
+    keys     = new long[capacity];
+    values   = new long[capacity];
+    mask     = capacity - 1;
+    resizeAt = Hashing.resizeAt(capacity);
+  }
+
+  /**
+   * @return 找到时返回槽位，否则返回~插入位置
+   */
+  private int find(long key) {
+
+    long[] keys = this.keys;
+    for (int i = Hashing.mix(key) & mask; ; i = (i + 1) & mask) {
+      long k = keys[i];
+      if (k == key) {
+        return i;
+      }
+      if (k == 0) {
+        return ~i;
+      }
+    }
+  }
+
+  public boolean containsKey(long key) {
+
+    return key == 0 ? hasZero : find(key) >= 0;
+  }
+
+  public long get(long key) {
+
+    return getOrDefault(key, 0);
+  }
+
+  public long getOrDefault(long key, long defaultValue) {
+
+    if (key == 0) {
+      return hasZero ? zeroValue : defaultValue;
+    }
+    int i = find(key);
+    return i >= 0 ? values[i] : defaultValue;
+  }
+
+  /**
+   * @return 原来的值，没有时返回0
+   */
+  public long put(long key, long value) {
+
+    if (key == 0) {
+      long old = zeroValue;
+      if (!hasZero) {
+        hasZero = true;
+        size++;
+      }
+      zeroValue = value;
+      return old;
+    }
+    int i = find(key);
+    if (i >= 0) {
+      long old = values[i];
+      values[i] = value;
+      return old;
+    }
+    insert(~i, key, value);
+    return 0;
+  }
+
+  /**
+   * 把delta累加到键对应的值上，键不存在时视为0
+   *
+   * @return 累加后的值
+   */
+  public long addTo(long key, long delta) {
+
+    if (key == 0) {
+      put(0, zeroValue + delta);
+      return zeroValue;
+    }
+    int i = find(key);
+    if (i >= 0) {
+      return values[i] += delta;
+    }
+    insert(~i, key, delta);
+    return delta;
+  }
+
+  /**
+   * 键已存在时用operator合并新旧值
+   */
+  public long merge(long key, long value, LongBinaryOperator operator) {
+
+    if (key == 0) {
+      put(0, hasZero ? operator.applyAsLong(zeroValue, value) : value);
+      return zeroValue;
+    }
+    int i = find(key);
+    if (i >= 0) {
+      return values[i] = operator.applyAsLong(values[i], value);
+    }
+    insert(~i, key, value);
+    return value;
+  }
+
+  private void insert(int i, long key, long value) {
+
+    keys[i]   = key;
+    values[i] = value;
+    if (++size >= resizeAt) {
+      rehash(keys.length << 1);
+    }
+  }
+
+  /**
+   * @return 被删除的值，没有时返回0
+   */
+  public long remove(long key) {
+
+    if (key == 0) {
+      if (!hasZero) {
+        return 0;
+      }
+      long old = zeroValue;
+      hasZero   = false;
+      zeroValue = 0;
+      size--;
+      return old;
+    }
+    int i = find(key);
+    if (i < 0) {
+      return 0;
+    }
+    long old = values[i];
+    shiftKeys(i);
+    size--;
+    return old;
+  }
+
+  /**
+   * 删除后把同一探测链上后面的元素前移，保证查找不因空槽提前结束
+   */
+  private void shiftKeys(int pos) {
+
+    long[] keys   = this.keys;
+    long[] values = this.values;
+    while (true) {
+      int last = pos;
+      long k;
+      while (true) {
+        pos = (pos + 1) & mask;
+        if ((k = keys[pos]) == 0) {
+          keys[last] = 0;
+          return;
+        }
+        int slot = Hashing.mix(k) & mask;
+        if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+          break;
+        }
+      }
+      keys[last]   = k;
+      values[last] = values[pos];
+    }
+  }
+
+  private void rehash(int capacity) {
+
+    long[] oldKeys   = keys;
+    long[] oldValues = values;
+    allocate(capacity);
+    for (int j = 0; j < oldKeys.length; j++) {
+      long k = oldKeys[j];
+      if (k != 0) {
+        int i = Hashing.mix(k) & mask;
+        while (keys[i] != 0) {
+          i = (i + 1) & mask;
+        }
+        keys[i]   = k;
+        values[i] = oldValues[j];
+      }
+    }
+  }
+
+  public int size() {
+
+    return size;
+  }
+
+  public boolean isEmpty() {
+
+    return size == 0;
+  }
+
+  public void clear() {
+
+    Arrays.fill(keys, 0);
+    hasZero   = false;
+    zeroValue = 0;
+    size      = 0;
+  }
+
+  public void forEach(EntryConsumer consumer) {
+
+    if (hasZero) {
+      consumer.accept(0, zeroValue);
+    }
+    long[] keys = this.keys;
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != 0) {
+        consumer.accept(keys[i], values[i]);
+      }
+    }
+  }
+
+  public LongZeroFlow keys() {
+
+    return c -> forEach((k, v) -> c.accept(k));
+  }
+
+  public LongZeroFlow values() {
+
+    return c -> forEach((k, v) -> c.accept(v));
+  }
+
+  @Override
+  public String toString() {
+
+    StringJoiner joiner = new StringJoiner(", ", "{", "}");
+    forEach((k, v) -> joiner.add(k + "=" + v));
+    return joiner.toString();
+  }
+
+  public interface EntryConsumer {
+
+    void accept(long key, long value);
+
+  }
+
+}
@@ -0,0 +1,30 @@
+package com.github.wolray.zero.flow;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程的支持，JDK 21+的多版本实现，直接使用{@link Thread#ofVirtual()}
+ *
+ * @author wolray
+ */
+final class VirtualThreads {
+
+  static final ThreadFactory FACTORY = Thread.ofVirtual().factory();
+
+  static final Async ASYNC = Async.of(FACTORY);
+
+  private VirtualThreads() {
+
+  }
+
+  static boolean isSupported() {
+
+    return true;
+  }
+
+  static Thread newThread(Runnable runnable) {
+
+    return FACTORY.newThread(runnable);
+  }
+
+}
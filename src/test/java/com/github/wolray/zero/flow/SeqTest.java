@@ -1,12 +1,39 @@
 package com.github.wolray.zero.flow;
 
 import com.github.wolray.zero.flow.pair.Pair;
+import com.github.wolray.zero.flow.pair.PairZeroFlow;
+import com.github.wolray.zero.flow.primitive.IntIntHashMap;
+import com.github.wolray.zero.flow.primitive.IntObjectHashMap;
+import com.github.wolray.zero.flow.primitive.LongHashSet;
+import com.github.wolray.zero.flow.primitive.LongObjectHashMap;
+import java.io.StringWriter;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import org.junit.Test;
@@ -133,6 +160,40 @@ public class SeqTest {
     assertTo(cart2.boxed(), "11,12,13,21,22,23,31,32,33");
   }
 
+  @Test
+  public void testFuse() {
+
+    ZeroFlow<Object>  seq   = ZeroFlow.of(1, "a", 2, null, 3, "b", 4);
+    StringBuilder     sb    = new StringBuilder();
+    ZeroFlow<Integer> fused = seq.fuse()
+        .filterInstance(Integer.class)
+        .onEach(sb::append)
+        .map(i -> i * 10)
+        .filter(i -> i != 20)
+        .mapNotNull(i -> i > 30 ? null : i);
+    assertTo(fused, "10,30");
+    assertTo(fused, "10,30");
+    assert sb.toString().equals("12341234") : sb;
+    assertTo(ZeroFlow.of(1, 2, 3).fuse(), "1,2,3");
+    assert seq.fuse().map(String::valueOf).fuse().depth() == 1;
+
+    //下游取消经由Sink传到源头，无限的源也能正常返回
+    boolean[] returned = {false};
+    ZeroFlow<Integer> polling = c -> {
+      Sink<Integer> sink = (Sink<Integer>) c;
+      for (int i = 0; !sink.cancelled(); i++) {
+        sink.accept(i);
+      }
+      returned[0] = true;
+    };
+    assertTo(polling.fuse().map(i -> i + 1).filter(i -> i % 2 == 0).take(3), "2,4,6");
+    assert returned[0];
+
+    //每种形状是单独定义的一份FusedStage
+    Consumer<Object> shared = FusedZeroFlow.stage(FusedStage.MAP, (Function<Object, Object>) o -> o, o -> {});
+    assert shared.getClass() != FusedStage.class && shared.getClass().getName().equals(FusedStage.class.getName());
+  }
+
   @Test
   public void testArraySeq() {
 
@@ -209,6 +270,758 @@ public class SeqTest {
     })).cache().consume(ForkJoinTask::join);
   }
 
+  @Test
+  public void testParallelSplit() {
+
+    ArrayListZeroFlow<Integer> list     = IntZeroFlow.range(10000).boxed().toList();
+    ExecutorService            executor = Executors.newFixedThreadPool(3);
+    for (Async async : Arrays.asList(Async.common(), Async.of(executor))) {
+      LongAdder sum = new LongAdder();
+      list.parallel(async, 100).filter(i -> (i & 1) == 0).map(i -> i * 2).consume(sum::add);
+      assert sum.sum() == 49990000 : sum;
+      LongAdder count = new LongAdder();
+      ListZeroFlow.of(new LinkedList<>(list)).parallel(async, 7).consume(i -> count.increment());
+      assert count.sum() == 10000 : count;
+    }
+    executor.shutdown();
+  }
+
+  @Test
+  public void testParallelBatched() {
+
+    ZeroFlow<Integer> seq      = c -> IntZeroFlow.range(10000).boxed().consume(c);
+    ExecutorService   executor = Executors.newFixedThreadPool(3);
+    for (Async async : Arrays.asList(Async.common(), Async.of(executor), Async.of(Thread::new), Async.virtual())) {
+      for (int batchSize : new int[]{0, 1, 333}) {
+        LongAdder sum = new LongAdder();
+        seq.parallel(async, batchSize).consume(sum::add);
+        assert sum.sum() == 49995000 : sum;
+      }
+      try {
+        seq.parallel(async, 100).consume(i -> {
+          if (i == 5000) {
+            throw new IllegalStateException();
+          }
+        });
+        assert false;
+      } catch (RuntimeException e) {
+        assert e instanceof IllegalStateException || e.getCause() instanceof IllegalStateException : e;
+      }
+    }
+    executor.shutdown();
+  }
+
+  @Test
+  public void testParallelReduce() {
+
+    ArrayListZeroFlow<Integer> list  = IntZeroFlow.range(10000).boxed().toList();
+    ZeroFlow<Integer>          flow  = c -> list.forEach(c);
+    Async                      async = Async.common();
+    assert list.parallelReduce(async, Reducer.toList()).equals(list);
+    assert list.parallelReduce(async, Reducer.count()) == 10000;
+    assert flow.parallelReduce(async, Reducer.sumInt(i -> i)) == 49995000;
+    assert flow.parallelReduce(async, Reducer.average(i -> i)) == 4999.5;
+    MapZeroFlow<Integer, Integer> groups = flow.parallelReduce(async, Reducer.groupBy(i -> i % 3, Reducer.count()));
+    assert groups.equals(flow.groupBy(i -> i % 3, Reducer.count())) : groups;
+    assert list.parallelReduce(async, Reducer.maxBy(i -> -i)).first == 0;
+    assert list.parallelReduce(async, Reducer.max(Integer::compare)) == 9999;
+    assert list.parallelReduce(async, Transducer.of(Collectors.toList())).equals(list);
+    assertTo(ZeroFlow.of(3, 1, 2).toList().parallelReduce(async, Reducer.sort()), "1,2,3");
+    //中间结果只在本次调用内复用，多次调用之间不会残留
+    for (int i = 0; i < 3; i++) {
+      List<Integer> all = flow.parallelReduce(async, Reducer.toList());
+      all.sort(null);
+      assert all.equals(list);
+    }
+    //中间结果的数量受并行度限制，而不是批数
+    ForkJoinPool  pool    = new ForkJoinPool(2);
+    AtomicInteger created = new AtomicInteger();
+    Reducer<Integer, int[]> counting = Reducer.of(() -> {
+      created.incrementAndGet();
+      return new int[1];
+    }, (a, t) -> a[0]++, (a, b) -> {
+      a[0] += b[0];
+      return a;
+    }, null);
+    int[] total = flow.parallelReduce(Async.of(pool), counting);
+    assert total[0] == 10000 && created.get() <= 3 : created;
+    pool.shutdown();
+  }
+
+  @Test
+  public void testMapParallel() {
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    Async           async    = Async.of(executor);
+    AtomicInteger   inFlight = new AtomicInteger();
+    AtomicInteger   peak     = new AtomicInteger();
+    ZeroFlow<Integer> seq = IntZeroFlow.range(50).boxed().mapParallel(async, 3, i -> {
+      peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      Async.delay((50 - i) % 7);
+      inFlight.decrementAndGet();
+      return i * 2;
+    });
+    assert seq.toList().equals(IntZeroFlow.range(0, 100, 2).boxed().toList());
+    assert peak.get() <= 3 : peak;
+    assertTo(ZeroFlow.gen(1, i -> i + 1).mapParallel(async, 4, i -> i * i).take(5), "1,4,9,16,25");
+    executor.shutdown();
+  }
+
+  @Test
+  public void testChannel() {
+
+    ExecutorService        executor = Executors.newFixedThreadPool(2);
+    Async                  async    = Async.of(executor);
+    AsyncZeroFlow<Integer> all      = async.toChannel(4, RingChannel.Overflow.BLOCK, IntZeroFlow.range(1000).boxed());
+    assert all.toList().equals(IntZeroFlow.range(1000).boxed().toList());
+    AsyncZeroFlow<Integer> inf = async.toChannel(4, RingChannel.Overflow.BLOCK, ZeroFlow.gen(1, i -> i + 1));
+    assertTo(inf.take(5), "1,2,3,4,5");
+    inf.joinConsume();
+    for (int cap = 1; cap <= 2; cap++) {
+      assert async.toChannel(cap, RingChannel.Overflow.BLOCK, ZeroFlow.repeat(20000, "x")).count() == 20000;
+      assert async.toChannel(cap, RingChannel.Overflow.BLOCK, ZeroFlow.repeat(20000, (String) null)).count() == 20000;
+      assert async.toChannel(cap, RingChannel.Overflow.BLOCK, IntZeroFlow.range(20000).map(i -> i & 7).boxed())
+          .toList().equals(IntZeroFlow.range(20000).map(i -> i & 7).boxed().toList());
+      RingChannel<String> lossy = new RingChannel<>(cap, RingChannel.Overflow.DROP_OLDEST);
+      executor.submit(() -> {
+        for (int i = 0; i < 20000; i++) {
+          lossy.offer(i % 3 == 0 ? null : "x");
+        }
+        lossy.close();
+      });
+      assert lossy.count() + lossy.dropped() == 20000;
+    }
+    executor.shutdown();
+
+    RingChannel<Integer> oldest = new RingChannel<>(3, RingChannel.Overflow.DROP_OLDEST);
+    RingChannel<Integer> newest = new RingChannel<>(3, RingChannel.Overflow.DROP_NEWEST);
+    for (int i = 0; i < 6; i++) {
+      oldest.offer(i);
+      newest.offer(i);
+    }
+    oldest.close();
+    newest.close();
+    assert oldest.capacity() == 4 && oldest.dropped() == 2 && newest.dropped() == 2;
+    assertTo(oldest, "2,3,4,5");
+    assertTo(newest, "0,1,2,3");
+    assert !oldest.offer(6);
+  }
+
+  @Test
+  public void testShared() {
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    Async           async    = Async.of(executor);
+    int             n        = 100000;
+    for (SharedRing.SlowPolicy policy : SharedRing.SlowPolicy.values()) {
+      LongAdder[]    sums       = new LongAdder[4];
+      int[]          last       = new int[sums.length];
+      CountDownLatch left       = new CountDownLatch(sums.length);
+      CountDownLatch registered = new CountDownLatch(1);
+      //所有订阅者注册后才开始生产，BLOCK下每个订阅者都能收到全部数据
+      ZeroFlow<Integer> source = c -> {
+        Async.apply(registered::await);
+        IntZeroFlow.range(n).boxed().consume(c);
+      };
+      SharedRing<Integer> ring = async.toShared(64, true, policy, source);
+      for (int i = 0; i < sums.length; i++) {
+        LongAdder sum = sums[i] = new LongAdder();
+        int       k   = i;
+        last[k] = -1;
+        ring.consume(t -> {
+          assert t > last[k];
+          last[k] = t;
+          sum.add(t);
+          if (t == n - 1) {
+            left.countDown();
+          }
+        });
+      }
+      registered.countDown();
+      Async.apply(left::await);
+      for (int i = 0; i < sums.length; i++) {
+        assert policy == SharedRing.SlowPolicy.LAG || sums[i].sum() == (long) n * (n - 1) / 2;
+        assert last[i] == n - 1;
+      }
+    }
+
+    //BLOCK下生产者运行中加入的订阅者从加入的位置起不丢数据
+    CountDownLatch      reached = new CountDownLatch(1);
+    CountDownLatch      joined  = new CountDownLatch(1);
+    CountDownLatch      done    = new CountDownLatch(2);
+    SharedRing<Integer> ring    = async.toShared(64, true, SharedRing.SlowPolicy.BLOCK, IntZeroFlow.range(n).boxed());
+    ring.consume(t -> {
+      if (t == 1000) {
+        reached.countDown();
+        Async.apply(joined::await);
+      }
+      if (t == n - 1) {
+        done.countDown();
+      }
+    });
+    Async.apply(reached::await);
+    int[] late = {-1, -1};
+    ring.consume(t -> {
+      assert late[1] < 0 || t == late[1] + 1 : late[1] + " -> " + t;
+      if (late[0] < 0) {
+        late[0] = t;
+      }
+      late[1] = t;
+      if (t == n - 1) {
+        done.countDown();
+      }
+    });
+    joined.countDown();
+    Async.apply(done::await);
+    assert late[0] <= 1000 + 64 && late[1] == n - 1 && ring.dropped() == 0 : Arrays.toString(late);
+    executor.shutdown();
+  }
+
+  @Test
+  public void testPrimitive() {
+
+    LongZeroFlow ls = LongZeroFlow.range(1L << 40, (1L << 40) + 5);
+    assert ls.sum() == 5 * (1L << 40) + 10;
+    assert ls.toArray().length == 5 && ls.toArray()[4] == (1L << 40) + 4;
+    assert ls.filter(t -> t % 2 == 0).count() == 3;
+    assert LongZeroFlow.gen(1, t -> t * 3).take(30).last().getAsLong() == 68630377364883L;
+    assertTo(ls.mapToInt(t -> (int) (t & 7)).boxed(), "0,1,2,3,4");
+
+    DoubleZeroFlow ds = DoubleZeroFlow.range(0, 1, 0.1);
+    assert ds.count() == 10;
+    assert Math.abs(ds.sum() - 4.5) < 1e-9;
+    assert DoubleZeroFlow.of(1, 2, 3, 4).average() == 2.5;
+    assert DoubleZeroFlow.of(1.5, -2, 3).max() == 3 && DoubleZeroFlow.of(1.5, -2, 3).min() == -2;
+    assertTo(DoubleZeroFlow.of(1.5, 2.5).mapToLong(Math::round).boxed(), "2,3");
+    double[] big = DoubleZeroFlow.range(1000).toArray();
+    assert big.length == 1000 && big[999] == 999;
+
+    ZeroFlow<String> words = ZeroFlow.of("a", "bb", "ccc");
+    assert words.mapToLong(String::length).sum() == 6;
+    assert words.mapToDouble(String::length).average() == 2;
+    assert IntZeroFlow.range(3).asLongFlow().map(t -> t << 33).asDoubleFlow().sum() == 3 * Math.pow(2, 33);
+    assertTo(IntZeroFlow.range(3).mapToDouble(i -> i / 2.0).boxed(), "0.0,0.5,1.0");
+  }
+
+  @Test
+  public void testBatched() {
+
+    for (int n : new int[]{0, 1, 15, 16, 17, 48, 1000, 100000}) {
+      BatchedZeroFlow<Integer> bs = IntZeroFlow.range(n).boxed().toBatched();
+      assert bs.size() == n;
+      for (int i = 0; i < n; i += 7) {
+        assert bs.get(i) == i;
+      }
+      assert Arrays.equals(bs.toObjArray(Integer[]::new), IntZeroFlow.range(n).boxed().toList().toArray());
+      assert bs.toList().equals(IntZeroFlow.range(n).boxed().toList());
+      assert bs.parallel(Async.common(), 10).reduce(new LongAdder(), LongAdder::add).sum() == (long) n * (n - 1) / 2;
+      IntZeroFlow.Batched is = IntZeroFlow.range(n).toBatched();
+      assert Arrays.equals(is.toArray(), IntZeroFlow.range(n).toArray()) && is.toArray().length == n;
+      assert n == 0 || is.get(n - 1) == n - 1;
+    }
+    int[] a = IntZeroFlow.range(1000).toArray();
+    assert a[999] == 999 && IntZeroFlow.of(a).sum() == 499500;
+  }
+
+  @Test
+  public void testPrimitiveHash() {
+
+    Random                   random  = new Random(7);
+    IntIntHashMap            counts  = new IntIntHashMap();
+    IntObjectHashMap<String> names   = new IntObjectHashMap<>();
+    LongHashSet              longs   = new LongHashSet();
+    Map<Integer, Integer>    expect  = new HashMap<>();
+    Set<Long>                longSet = new HashSet<>();
+    for (int i = 0; i < 200000; i++) {
+      int key = random.nextInt(2000) - 1000;
+      if (random.nextInt(4) == 0) {
+        assert counts.remove(key) == expect.getOrDefault(key, 0);
+        expect.remove(key);
+        names.remove(key);
+        assert longs.remove(key * 10000000000L) == longSet.remove(key * 10000000000L);
+      } else {
+        counts.addTo(key, 1);
+        expect.merge(key, 1, Integer::sum);
+        names.put(key, "v" + key);
+        longs.add(key * 10000000000L);
+        longSet.add(key * 10000000000L);
+      }
+    }
+    assert counts.size() == expect.size() && names.size() == expect.size() && longs.size() == longSet.size();
+    expect.forEach((k, v) -> {
+      assert counts.get(k) == v;
+      assert ("v" + k).equals(names.get(k));
+    });
+    assert counts.containsKey(0) == expect.containsKey(0);
+    assert longs.boxed().toSet().equals(longSet);
+
+    assertTo(IntZeroFlow.of(3, 0, 3, 1, 0, 2, 1).distinct().boxed(), "3,0,1,2");
+    assert IntZeroFlow.of(5, 5, 0, -1).toSet().count() == 3;
+    assert LongZeroFlow.of(1L << 40, 0, 1L << 40).distinct().count() == 2;
+    IntObjectHashMap<IntZeroFlow.Batched> parity = IntZeroFlow.range(10).groupBy(i -> i % 2);
+    assert Arrays.equals(parity.get(1).toArray(), new int[]{1, 3, 5, 7, 9});
+    assert IntZeroFlow.range(10).countBy(i -> i % 3).get(0) == 4;
+    IntObjectHashMap<Integer> lengths = ZeroFlow.of("a", "bb", "cc", "ddd").groupByInt(String::length, Reducer.count());
+    assert lengths.get(2) == 2 && lengths.get(3) == 1 && lengths.get(4) == null;
+    assert ZeroFlow.of("a", "bb", "cc").groupByInt(String::length).get(2).equals(Arrays.asList("bb", "cc"));
+
+    //merge返回合并后的值，0键与其它键一致
+    IntObjectHashMap<String>  intMerge  = new IntObjectHashMap<>();
+    LongObjectHashMap<String> longMerge = new LongObjectHashMap<>();
+    IntIntHashMap             sums      = new IntIntHashMap();
+    List<Object>              merged    = new ArrayList<>();
+    for (int key = 0; key <= 1; key++) {
+      merged.add(intMerge.merge(key, "a", String::concat));
+      merged.add(intMerge.merge(key, "b", String::concat));
+      merged.add(longMerge.merge(key, "a", String::concat));
+      merged.add(longMerge.merge(key, "b", String::concat));
+      merged.add(sums.merge(key, 2, Integer::sum));
+      merged.add(sums.merge(key, 3, Integer::sum));
+    }
+    assert merged.toString().equals("[a, ab, a, ab, 2, 5, a, ab, a, ab, 2, 5]") : merged;
+    assert intMerge.get(0).equals("ab") && longMerge.get(0).equals("ab") && sums.get(0) == 5;
+  }
+
+  @Test
+  public void testOffHeap() {
+
+    BufferPoolMXBean direct = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+        .filter(b -> "direct".equals(b.getName()))
+        .findFirst()
+        .orElse(null);
+    long                before = direct.getMemoryUsed();
+    IntZeroFlow.OffHeap ints   = IntZeroFlow.range(200000).offHeap();
+    assert ints.size() == 200000 && ints.get(123456) == 123456;
+    assert Arrays.equals(ints.toArray(), IntZeroFlow.range(200000).toArray());
+    assert ints.sum() == IntZeroFlow.range(200000).sum();
+    ints.set(0, -1);
+    assert ints.first().getAsInt() == -1;
+    assert direct.getMemoryUsed() - before >= ints.bytes();
+    ints.close();
+    assert direct.getMemoryUsed() == before;
+    List<Runnable> closedOps = Arrays.asList(() -> ints.get(0), () -> ints.add(0), ints::count, ints::toArray, ints::sum,
+        () -> ints.consume(i -> {}));
+    for (Runnable op : closedOps) {
+      boolean thrown = false;
+      try {
+        op.run();
+      } catch (IllegalStateException e) {
+        thrown = true;
+      }
+      assert thrown;
+    }
+
+    try (LongZeroFlow.OffHeap longs = LongZeroFlow.range(1L << 40, (1L << 40) + 70000).offHeap();
+         DoubleZeroFlow.OffHeap doubles = DoubleZeroFlow.range(0, 7000, 0.1).offHeap()) {
+      assert longs.get(69999) == (1L << 40) + 69999 && longs.toArray()[65536] == (1L << 40) + 65536;
+      assert doubles.size() == 70000 && Arrays.equals(doubles.toArray(), DoubleZeroFlow.range(0, 7000, 0.1).toArray());
+      longs.close();
+      doubles.close();
+      boolean thrown = false;
+      try {
+        longs.toArray();
+      } catch (IllegalStateException e) {
+        thrown = true;
+      }
+      assert thrown;
+      thrown = false;
+      try {
+        doubles.consume(d -> {});
+      } catch (IllegalStateException e) {
+        thrown = true;
+      }
+      assert thrown;
+    }
+  }
+
+  @Test
+  public void testMapped() {
+
+    String text = "first line\r\nsecond\n\nthird line crossing segments\rfourth\r\n\r\nlast without eol";
+    Path   path = ByteSource.of(text.getBytes()).writeTemp(".txt");
+    try (MappedByteSource mapped = MappedByteSource.map(path, 4)) {
+      assert mapped.size() == text.length();
+      assert mapped.toSeq().toList().equals(ByteSource.of(path).toSeq().toList());
+      assert mapped.asString().equals(text);
+      long             at    = mapped.indexOf((byte) 't', 12);
+      MappedByteSource slice = mapped.slice(at, at + 20);
+      assert at == text.indexOf('t', 12) && slice.get(0) == 't';
+      assert slice.asString().equals(text.substring((int) at, (int) at + 20));
+      assertTo(slice.toSeq(), "third line crossing ");
+      mapped.close();
+      assert slice.isClosed();
+      try {
+        slice.get(0);
+        assert false;
+      } catch (IllegalStateException ignored) {
+      }
+    }
+    try (MappedByteSource mapped = ByteSource.mapped(path)) {
+      assert mapped.toSeq().count() == 7;
+    }
+    //与ASCII不兼容的字符集经过Reader解码
+    Path         utf16  = ByteSource.of(text.getBytes(StandardCharsets.UTF_16)).writeTemp(".txt");
+    List<String> expect = ByteSource.of(utf16).withCharset(StandardCharsets.UTF_16).toSeq().toList();
+    assert expect.size() == 7 && expect.get(0).equals("first line");
+    try (MappedByteSource mapped = ByteSource.mapped(utf16)) {
+      MappedByteSource wide = mapped.withCharset(StandardCharsets.UTF_16);
+      assert wide.toSeq().toList().equals(expect);
+      assert wide.parallelLines(Async.common(), 4, true).toList().equals(expect);
+    }
+    assert ByteSource.of(utf16).withCharset(StandardCharsets.UTF_16).parallelLines(Async.common(), 4, true).toList().equals(expect);
+    assert ByteSource.of(path).withCharset(StandardCharsets.UTF_8).parallelLines(Async.common(), 2, true).count() == 7;
+    //回调中关闭，正在进行的遍历结束后才解除映射
+    MappedByteSource mapped = ByteSource.mapped(path);
+    int[]            count  = {0};
+    mapped.consumeLines((from, to) -> {
+      if (count[0]++ == 0) {
+        mapped.close();
+      }
+      assert mapped.isClosed();
+    });
+    assert count[0] == 7;
+    try {
+      mapped.indexOf((byte) 't', 0);
+      assert false;
+    } catch (IllegalStateException ignored) {
+    }
+  }
+
+  @Test
+  public void testLineViews() {
+
+    String     text   = "alpha\r\nbeta\n\ngamma is a long line\rdelta\r\n\r\nepsilon";
+    ByteSource source = ByteSource.of(text.getBytes());
+    for (int bufferSize : new int[]{1, 4, 8192}) {
+      assert source.toLineViews(bufferSize).map(LineView::toString).toList().equals(source.toSeq().toList());
+    }
+    assertTo(source.toLineViews(4).filter(v -> v.contains("ta")).map(LineView::toString), "beta,delta");
+    LineView gamma = source.toLineViews().filter(v -> v.startsWith("gam")).first();
+    assert gamma != null && gamma.endsWith("") && gamma.indexOf('z') < 0;
+  }
+
+  @Test
+  public void testParallelLines() {
+
+    String text = IntZeroFlow.range(10000).mapToObj(i -> i % 7 == 0 ? i + "\r\n" : i % 11 == 0 ? "\n" : i + "\n").join("");
+    Path   path = ByteSource.of(text.getBytes()).writeTemp(".txt");
+    List<String> lines = ByteSource.of(path).toSeq().toList();
+    try (MappedByteSource mapped = MappedByteSource.map(path, 10)) {
+      for (int n : new int[]{1, 3, 64, 20000}) {
+        assert mapped.split(n).map(MappedByteSource::asString).join("").equals(text);
+      }
+      ConcurrentLinkedQueue<String> queue = new ConcurrentLinkedQueue<>();
+      mapped.parallelLines(Async.common(), 4).consume(queue::add);
+      assert queue.size() == lines.size() && new HashSet<>(queue).equals(new HashSet<>(lines));
+      assert mapped.parallelLines(Async.common(), 4, true).toList().equals(lines);
+    }
+    assert ByteSource.of(path).parallelLines(Async.common(), 3, true).toList().equals(lines);
+    assert ByteSource.of(text.getBytes()).parallelLines(Async.common(), 3).toList().equals(lines);
+
+    //提前结束或出错时，文件的映射在其它区间的读取结束后才解除
+    Path big = ByteSource.of(IntZeroFlow.range(300000).mapToObj(i -> i + "\n").join("").getBytes()).writeTemp(".txt");
+    for (int i = 0; i < 20; i++) {
+      assertTo(ByteSource.of(big).parallelLines(Async.common(), 4, true).take(1), "0");
+      try {
+        ByteSource.of(big).parallelLines(Async.common(), 4).consume(s -> {
+          throw new IllegalArgumentException("boom");
+        });
+        assert false;
+      } catch (RuntimeException e) {
+        assert String.valueOf(e.getMessage()).contains("boom") : e;
+      }
+    }
+    assert ByteSource.of(big).parallelLines(Async.common(), 4, true).count() == 300000;
+  }
+
+  @Test
+  public void testCsv() {
+
+    String     text   = "id,name,score,note\r\n1,\"Smith, J\",-42,\"say \"\"hi\"\"\"\n\n2,\"multi\nline\",9223372036854775807,\n3,short";
+    ByteSource source = ByteSource.of(text.getBytes());
+    assertTo(CsvReader.csv().read(source).map(CsvReader.Row::toString), "|",
+        "[id, name, score, note]|[1, Smith, J, -42, say \"hi\"]|[2, multi\nline, 9223372036854775807, ]|[3, short]");
+
+    List<String> rows = CsvReader.csv().select(2, 0).read(source).drop(1).map(r -> r.getLong(1) + ":" + (r.has(0) ? r.getLong(0) : "-")).toList();
+    assert rows.toString().equals("[1:-42, 2:9223372036854775807, 3:-]") : rows;
+
+    CsvReader tsv = CsvReader.tsv().withoutQuote().withEscape('\\');
+    assertTo(tsv.read(ByteSource.of("a\\\tb\t\"c\"\t3.5".getBytes())).map(r -> r.getString(0) + "|" + r.getString(1) + "|" + r.getDouble(2)), "a\tb|\"c\"|3.5");
+    try {
+      CsvReader.csv().select(1, 1);
+      assert false;
+    } catch (IllegalArgumentException ignored) {
+    }
+  }
+
+  @Test
+  public void testSplitter() {
+
+    assertTo(Splitter.of(',').split("a,,b,c", 3), "|", "a||b");
+    assertTo(Splitter.of("::").split("::a::b"), "|", "|a|b");
+    assertTo(Splitter.of(Pattern.compile("\\s+")).split("a  b\tc"), "|", "a|b|c");
+    assertTo(Splitter.of("").split("ab"), "|", "ab");
+
+    StringBuilder sb      = new StringBuilder("k1=v1 k2=v2");
+    StringBuilder offsets = new StringBuilder();
+    Splitter.of(' ').splitOffsets(sb, (start, end) -> offsets.append(start).append('-').append(end).append(';'));
+    assert offsets.toString().equals("0-5;6-11;") : offsets;
+
+    String[] reuse = new String[3];
+    assert Splitter.of('|').splitInto("x|y", reuse) == 2 && reuse[0].equals("x") && reuse[1].equals("y");
+    assert Splitter.of('|').splitInto("1|2|3|4", reuse) == 3 && reuse[2].equals("3");
+  }
+
+  @Test
+  public void testParsers() {
+
+    for (String s : new String[]{"0", "-0", "+17", "2147483647", "-2147483648", "9223372036854775807", "-9223372036854775808"}) {
+      assert Parsers.parseLong("[" + s + "]", 1, s.length() + 1) == Long.parseLong(s);
+    }
+    for (String s : new String[]{"", "-", "1x", "9223372036854775808", "2147483648"}) {
+      try {
+        Parsers.parseInt(s);
+        assert false : s;
+      } catch (NumberFormatException ignored) {
+      }
+    }
+    Random random = new Random(42);
+    for (int i = 0; i < 10000; i++) {
+      String s = i % 3 == 0 ? Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(40) - 20))
+                            : String.format("%." + random.nextInt(8) + "f", (random.nextDouble() - 0.5) * 1e6);
+      assert Parsers.parseDouble(s) == Double.parseDouble(s) : s;
+      assert Parsers.parseDouble(s.getBytes(), 0, s.length()) == Double.parseDouble(s) : s;
+    }
+    for (String s : new String[]{"1e400", "-0.0", "NaN", ".5", "1.", "12345678901234567890.5", "4.9e-324"}) {
+      assert Double.compare(Parsers.parseDouble(s), Double.parseDouble(s)) == 0 : s;
+    }
+
+    for (String s : new String[]{"2024-02-29T13:45:07.123456Z", "1969-12-31T23:59:59+08:00", "2000-01-01 00:00:00.5-0130", "1600-03-01T00:00Z"}) {
+      String iso = s.replace(' ', 'T').replace("-0130", "-01:30");
+      assert Parsers.parseEpochMillis(s) == java.time.OffsetDateTime.parse(iso).toInstant().toEpochMilli() : s;
+    }
+    assert Parsers.parseEpochMillis("1970-01-02") == 86400_000L;
+    try {
+      Parsers.parseEpochMillis("2023-02-29");
+      assert false;
+    } catch (java.time.format.DateTimeParseException ignored) {
+    }
+
+    assert Splitter.of(',').splitToInt("3,-1,40").sum() == 42;
+    assert Splitter.of(' ').splitToDouble("0.5 0.25").sum() == 0.75;
+    assert CsvReader.csv().read(ByteSource.of("x,2024-01-01T00:00:01Z".getBytes())).first().getEpochMillis(1) == 1704067201000L;
+  }
+
+  @Test
+  public void testParseMap() {
+
+    String payload = "host:a|cpu:42|bad|mem:7|cpu:3";
+    assert PairZeroFlow.parseMap(payload, '|', ':').toMap().toString().equals("{host=a, cpu=3, mem=7}");
+
+    KeyCache     keys  = new KeyCache(64);
+    List<String> first = PairZeroFlow.parseMap(payload, '|', ':', keys).paired().map(p -> p.first).toList();
+    List<String> again = PairZeroFlow.parseMap(new StringBuilder(payload), '|', ':', keys).paired().map(p -> p.first).toList();
+    assert first.equals(again);
+    for (int i = 0; i < first.size(); i++) {
+      assert first.get(i) == again.get(i);
+    }
+    KeyCache tiny = new KeyCache(1);
+    assert tiny.get(new StringBuilder("Aa")).equals("Aa") && tiny.get(new StringBuilder("BB")).equals("BB");
+    assert tiny.get(new StringBuilder("BB")) == tiny.get(new StringBuilder("BB"));
+
+    long[] cpu = {0};
+    PairZeroFlow.parseMap(payload, '|', ':', keys, (k, start, end) -> {
+      if (k.equals("cpu")) {
+        cpu[0] += Parsers.parseLong(payload, start, end);
+      }
+    });
+    assert cpu[0] == 45;
+  }
+
+  @Test
+  public void testJson() {
+
+    String json = "{\"meta\": {\"skip\": [1, {\"x\": \"]}\\\"\"}], \"n\": null},\n"
+        + " \"items\": [{\"id\": 1, \"tags\": [\"a\", \"b\\u0021\"], \"score\": 1.5e2},"
+        + " {\"id\": 12345678901234567890, \"ok\": true, \"nested\": {\"deep\": []}}, 7, \"s\"]}";
+    ByteSource source = ByteSource.of(json.getBytes());
+    assertTo(source.toJsonSeq("$.items[*]"), "|", "{id=1, tags=[a, b!], score=150.0}|{id=1.2345678901234567E19, ok=true, nested={deep=[]}}|7|s");
+    assertTo(source.toJsonSeq("$.items[0].tags[1]"), "b!");
+    assertTo(source.toJsonSeq("$['items'][*].id"), "1,1.2345678901234567E19");
+    assertTo(source.toJsonSeq("$.meta.*").map(String::valueOf), "|", "[1, {x=]}\"}]|null");
+    assertTo(JsonReader.elements().read(ByteSource.of("[1, [2, 3], {}]".getBytes())), "|", "1|[2, 3]|{}");
+    assertTo(source.toJsonSeq("$.missing[*]"), "");
+
+    int[] seen = {0};
+    ZeroFlow<Object> lazy = JsonReader.elements().read(ByteSource.of("[1, 2, 3, oops".getBytes()));
+    assertTo(lazy.onEach(o -> seen[0]++).take(2), "1,2");
+    assert seen[0] == 2;
+    try {
+      lazy.count();
+      assert false;
+    } catch (IllegalArgumentException ignored) {
+    }
+  }
+
+  @Test
+  public void testIterator() throws InterruptedException {
+
+    Iterator<Integer> it = ZeroFlow.gen(1, i -> i * 2).iterator();
+    List<Integer> pulled = Arrays.asList(it.next(), it.next(), it.next());
+    assert pulled.equals(Arrays.asList(1, 2, 4));
+
+    AtomicInteger  produced = new AtomicInteger();
+    CountDownLatch released = new CountDownLatch(2);
+    ZeroFlow<Integer> naturals = c -> {
+      try {
+        ZeroFlow.gen(0, i -> i + 1).onEach(i -> produced.incrementAndGet()).consume(c);
+      } finally {
+        released.countDown();
+      }
+    };
+    try (PullIterator<Integer> pull = naturals.iterator(4)) {
+      pulled = Arrays.asList(pull.next(), pull.next());
+      assert pulled.equals(Arrays.asList(0, 1));
+    }
+    //被丢弃的迭代器回收后生产者也会停止
+    PullIterator<Integer> abandoned = naturals.iterator(4);
+    Integer               head      = abandoned.next();
+    assert head == 0;
+    abandoned.reclaim();
+    boolean stopped = released.await(10, TimeUnit.SECONDS);
+    assert stopped;
+    assert produced.get() < 20;
+
+    List<Integer> list = new ArrayList<>();
+    ZeroFlow.of(1, null, 3).iterator().forEachRemaining(list::add);
+    assert list.equals(Arrays.asList(1, null, 3));
+    for (int buffer = 1; buffer <= 2; buffer++) {
+      int n = 0;
+      for (Iterator<String> rep = ZeroFlow.repeat(20000, "x").iterator(buffer); rep.hasNext(); n++) {
+        String x = rep.next();
+        assert "x".equals(x);
+      }
+      assert n == 20000;
+      n = 0;
+      for (Iterator<Object> nil = ZeroFlow.repeat(20000, null).iterator(buffer); nil.hasNext(); n++) {
+        Object x = nil.next();
+        assert x == null;
+      }
+      assert n == 20000;
+    }
+
+    ZeroFlow<Integer> boom = c -> {
+      c.accept(1);
+      c.accept(2);
+      throw new IllegalStateException("boom");
+    };
+    Iterator<Integer> failing = boom.iterator();
+    pulled = Arrays.asList(failing.next(), failing.next());
+    assert pulled.equals(Arrays.asList(1, 2));
+    try {
+      failing.hasNext();
+      assert false;
+    } catch (IllegalStateException e) {
+      assert e.getMessage().equals("boom");
+    }
+    assert !failing.hasNext();
+  }
+
+  @Test
+  public void testSink() {
+
+    boolean[] returned = {false};
+    ZeroFlow<Integer> polling = c -> {
+      Sink<Integer> sink = (Sink<Integer>) c;
+      for (int i = 0; !sink.cancelled(); i++) {
+        sink.accept(i);
+      }
+      returned[0] = true;
+    };
+    assertTo(polling.map(i -> i + 1).filter(i -> i % 2 > 0).take(3), "1,3,5");
+    assert returned[0];
+    assert polling.onEach(i -> {}).first() == 0;
+    assert polling.flatMap(i -> ZeroFlow.of(i, i)).find(i -> i > 2).get() == 3;
+
+    //不检查取消状态的源仍按异常中断
+    ZeroFlow<Integer> plain = c -> {
+      for (int i = 0; ; i++) {
+        c.accept(i);
+      }
+    };
+    assertTo(plain.map(i -> i * 2).take(3), "0,2,4");
+    assertTo(ZeroFlow.flat(ZeroFlow.of(1, 2), plain).take(3), "1,2,0");
+    assertTo(ZeroFlow.flat(ZeroFlow.of(1, 2, 3).take(2), ZeroFlow.of(9)), "1,2,9");
+    assertTo(ZeroFlow.gen(1, i -> i * 3).takeWhile(i -> i < 100), "1,3,9,27,81");
+
+    assert IntZeroFlow.range(Integer.MAX_VALUE).map(i -> i * 2).find(i -> i > 10).getAsInt() == 12;
+    assertTo(IntZeroFlow.range(10, 0, -1).boxed().take(3), "10,9,8");
+    assertTo(IntZeroFlow.gen(1, i -> i * 2).take(4).boxed(), "1,2,4,8");
+  }
+
+  @Test
+  public void testBatches() {
+
+    List<String> sizes = new ArrayList<>();
+    ArrayListZeroFlow<Integer> list = IntZeroFlow.range(600).boxed().collectBy(ArrayListZeroFlow::new);
+    list.consumeBatches((block, offset, length) -> sizes.add(offset + ":" + length));
+    assert sizes.toString().equals("[0:256, 0:256, 0:88]");
+    sizes.clear();
+    list.toBatched().consumeBatches((block, offset, length) -> sizes.add(String.valueOf(length)));
+    assert IntZeroFlow.of(sizes.stream().mapToInt(Integer::parseInt).toArray()).sum() == 600 && sizes.size() > 1;
+    sizes.clear();
+    list.asIterable().map(i -> i + 1).take(300).consumeBatches((block, offset, length) -> sizes.add(String.valueOf(length)));
+    assert sizes.toString().equals("[256, 44]");
+
+    assert Arrays.equals(list.toIntArray(i -> i * 2), IntZeroFlow.range(0, 1200, 2).toArray());
+    assertTo(list.chunked(250).map(List::size), "250,250,100");
+    //非数组源逐个填充，不会提前拉取一整块
+    int[] pulled = {0};
+    assert list.asIterable().onEach(i -> pulled[0]++).chunked(2).first().equals(Arrays.asList(0, 1));
+    assert pulled[0] <= 3 : pulled[0];
+    assertTo(ZeroFlow.empty().chunked(2), "[]");
+
+    int[] a = IntZeroFlow.range(1000).toArray();
+    IntZeroFlow.of(a).consumeBatches((block, offset, length) -> {
+      assert block == a && offset == 0 && length == 1000;
+    });
+    assert IntZeroFlow.of(a).toBatched().get(999) == 999;
+    assert IntZeroFlow.of(a).filter(i -> i % 3 == 0).sum() == 166833;
+    assert IntZeroFlow.of(a).filter(i -> i % 3 == 0).count() == 334;
+
+    StringWriter writer = new StringWriter();
+    ZeroFlow.of(1, null, 3).writeLines(() -> writer);
+    String sep = System.lineSeparator();
+    assert writer.toString().equals("1" + sep + "null" + sep + "3" + sep);
+  }
+
+  @Test
+  public void testInstrument() {
+
+    ZeroFlow<Integer> seq = ZeroFlow.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+    assert seq.instrument("off") == seq && seq.instrumentAll("off") == seq;
+
+    MetricsRegistry.InMemory metrics = MetricsRegistry.inMemory();
+    Instrumentation.enable(metrics);
+    try {
+      ZeroFlow<Integer> pipeline = seq.instrument("source")
+          .map(i -> i * 2)
+          .filter(i -> i % 3 != 0)
+          .instrument("filter")
+          .take(3);
+      assertTo(pipeline, "2,4,8");
+      assertTo(seq.instrumentAll("p").map(i -> i + 1).filter(i -> i > 5).toList(), "6,7,8,9,10,11");
+    } finally {
+      Instrumentation.disable();
+    }
+    MetricsRegistry.Stage source = metrics.get("source"), filter = metrics.get("filter");
+    assert source.runs() == 1 && source.in() == 0 && source.out() == 4 && source.stops() == 1;
+    assert filter.in() == 4 && filter.out() == 3 && filter.stops() == 1;
+    assert filter.selfNanos() >= 0 && filter.downstreamNanos() >= 0;
+    assert metrics.stages().keySet().toString().equals("[source, filter, p/0:source, p/1:map, p/2:filter]");
+    assert metrics.get("p/2:filter").in() == 10 && metrics.get("p/2:filter").out() == 6;
+  }
+
   @Test
   public void testDuplicate() {
 